@@ -0,0 +1,27 @@
+package Benchmark;
+
+public class BenchmarkResult {
+    public String instanceName;
+    public String benchmarkName;
+    public double avgOpsPerSecond;
+    public double minOpsPerSecond;
+    public double maxOpsPerSecond;
+    public double avgTimePerOpUs;    // microseconds per operation
+    public double bytesPerOp;        // -1 when the JVM can't measure thread allocation
+    public double allocationRateMBs; // allocated megabytes per second, -1 when unsupported
+    public long totalOps;
+
+    public BenchmarkResult(String instanceName, String benchmarkName,
+                           double avgOpsPerSecond, double minOpsPerSecond, double maxOpsPerSecond,
+                           double avgTimePerOpUs, double bytesPerOp, double allocationRateMBs, long totalOps) {
+        this.instanceName = instanceName;
+        this.benchmarkName = benchmarkName;
+        this.avgOpsPerSecond = avgOpsPerSecond;
+        this.minOpsPerSecond = minOpsPerSecond;
+        this.maxOpsPerSecond = maxOpsPerSecond;
+        this.avgTimePerOpUs = avgTimePerOpUs;
+        this.bytesPerOp = bytesPerOp;
+        this.allocationRateMBs = allocationRateMBs;
+        this.totalOps = totalOps;
+    }
+}
@@ -0,0 +1,161 @@
+package Benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Small JMH-style harness: every benchmark gets a few untimed warmup iterations so the JIT settles,
+// then fixed-length measurement iterations reporting throughput and bytes allocated by the benchmark thread.
+public class MicroBenchmark {
+
+    @FunctionalInterface
+    public interface Operation {
+        // Returned value is consumed so the JIT can't drop the work; op counts calls from 0
+        int run(int op);
+    }
+
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationTimeMs = 1000;
+    private volatile int sink;
+
+    public MicroBenchmark() {
+
+    }
+
+    public MicroBenchmark(int warmupIterations, int measurementIterations, long iterationTimeMs) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationTimeMs = iterationTimeMs;
+    }
+
+    public BenchmarkResult measure(String instanceName, String benchmarkName, Operation operation) {
+        int op = 0;
+        for (int i = 0; i < warmupIterations; i++) {
+            op = runIteration(operation, op, null);
+        }
+
+        double minOpsPerSecond = Double.MAX_VALUE;
+        double maxOpsPerSecond = 0;
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] stats = new long[3]; // ops, nanos, bytes
+            op = runIteration(operation, op, stats);
+
+            double opsPerSecond = stats[0] * 1e9 / stats[1];
+            minOpsPerSecond = Math.min(minOpsPerSecond, opsPerSecond);
+            maxOpsPerSecond = Math.max(maxOpsPerSecond, opsPerSecond);
+            totalOps += stats[0];
+            totalNanos += stats[1];
+            totalBytes += stats[2];
+        }
+
+        double avgOpsPerSecond = totalOps * 1e9 / totalNanos;
+        double avgTimePerOpUs = totalNanos / 1e3 / totalOps;
+        double bytesPerOp = -1;
+        double allocationRateMBs = -1;
+        if (totalBytes >= 0) {
+            bytesPerOp = (double) totalBytes / totalOps;
+            allocationRateMBs = totalBytes / (1024.0 * 1024.0) / (totalNanos / 1e9);
+        }
+
+        return new BenchmarkResult(instanceName, benchmarkName, avgOpsPerSecond, minOpsPerSecond, maxOpsPerSecond,
+                avgTimePerOpUs, bytesPerOp, allocationRateMBs, totalOps);
+    }
+
+    // Calls operation until iterationTimeMs has passed and returns the next op number.
+    // When stats is given it receives the number of calls, elapsed nanos and allocated bytes (-1 if unsupported).
+    private int runIteration(Operation operation, int op, long[] stats) {
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        long end = start + iterationTimeMs * 1_000_000L;
+
+        long ops = 0;
+        int acc = 0;
+        long now;
+        do {
+            acc += operation.run(op++);
+            ops++;
+            now = System.nanoTime();
+        } while (now < end);
+        sink = acc;
+
+        if (stats != null) {
+            long endBytes = allocatedBytes();
+            stats[0] = ops;
+            stats[1] = now - start;
+            stats[2] = (startBytes < 0 || endBytes < 0) ? -1 : endBytes - startBytes;
+        }
+        return op;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public void exportResults(List<BenchmarkResult> results, String filename) throws IOException {
+        try (FileWriter writer = new FileWriter(filename)) {
+            // Write header
+            writer.append("Instance,Benchmark,AvgOpsPerSecond,MinOpsPerSecond,MaxOpsPerSecond,AvgTimePerOpUs,BytesPerOp,AllocationRateMBs,TotalOps");
+            writer.append(System.lineSeparator());
+
+            // Write data
+            for (BenchmarkResult result : results) {
+                writer.append(String.format(Locale.ROOT, "%s,%s,%.2f,%.2f,%.2f,%.3f,%.1f,%.2f,%d",
+                        result.instanceName,
+                        result.benchmarkName,
+                        result.avgOpsPerSecond,
+                        result.minOpsPerSecond,
+                        result.maxOpsPerSecond,
+                        result.avgTimePerOpUs,
+                        result.bytesPerOp,
+                        result.allocationRateMBs,
+                        result.totalOps));
+                writer.append(System.lineSeparator());
+            }
+        }
+    }
+
+    // Prints throughput and allocation changes against a CSV written earlier by exportResults
+    public void compareWithBaseline(List<BenchmarkResult> results, String baselineFile) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(baselineFile))) {
+            // Skip header
+            String line = br.readLine();
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length != 9) continue; // skip malformed lines
+                baseline.put(parts[0] + "," + parts[1], parts);
+            }
+        }
+
+        for (BenchmarkResult result : results) {
+            String[] base = baseline.get(result.instanceName + "," + result.benchmarkName);
+            if (base == null) {
+                System.out.printf("%s %s - not in baseline%n", result.instanceName, result.benchmarkName);
+                continue;
+            }
+            double baseOpsPerSecond = Double.parseDouble(base[2]);
+            double baseBytesPerOp = Double.parseDouble(base[6]);
+            System.out.printf(Locale.ROOT, "%s %s - ops/s: %+.1f%%, B/op: %.1f -> %.1f%n",
+                    result.instanceName,
+                    result.benchmarkName,
+                    (result.avgOpsPerSecond / baseOpsPerSecond - 1) * 100,
+                    baseBytesPerOp,
+                    result.bytesPerOp);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package Benchmark;
+
+import HybridEvolutionary.HybridEvolutionarySolver;
+import HybridEvolutionary.RecombinationOperator;
+import LargeNeighborhoodSearch.LargeNeighborhoodSearchSolver;
+import LocalSearch.DeltaLocalSearch.DeltaLocalSearchSolver;
+import LocalSearch.DeltaResult;
+import LocalSearch.IntraRouteMoveType;
+import LocalSearch.LinKernighan.LinKernighanSolver;
+import LocalSearch.LocalSearchCandidateMoves.LocalSearchCandidateMovesSolver;
+import LocalSearch.LocalSearchSolver;
+import LocalSearch.StartingSolutionType;
+import Utilities.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Throughput and allocation of the solver hot paths on TSPA and TSPB.
+// Usage: SolverBenchmarks [baseline csv] - the summary is written to src/Results/Benchmark/benchmark_summary.csv
+// and, when a baseline from an earlier run is given, compared against it.
+public class SolverBenchmarks {
+
+    private static final long SEED = 12345;
+    private static final int POOL_SIZE = 16; // inputs are cycled so no benchmark works on a single tour
+
+    private final MicroBenchmark harness;
+
+    public SolverBenchmarks(MicroBenchmark harness) {
+        this.harness = harness;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SolverBenchmarks benchmarks = new SolverBenchmarks(new MicroBenchmark());
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        results.addAll(benchmarks.runBenchmarks(new Instance("./raw_data/TSPA.csv", "TSPA")));
+        results.addAll(benchmarks.runBenchmarks(new Instance("./raw_data/TSPB.csv", "TSPB")));
+
+        File outDir = new File("src/Results/Benchmark");
+        if (!outDir.exists()) {
+            outDir.mkdirs();
+        }
+        benchmarks.harness.exportResults(results, outDir.getPath() + "/benchmark_summary.csv");
+
+        if (args.length > 0) {
+            benchmarks.harness.compareWithBaseline(results, args[0]);
+        }
+    }
+
+    public List<BenchmarkResult> runBenchmarks(Instance instance) {
+        List<BenchmarkResult> results = new ArrayList<>();
+
+        // Random starting tours and locally optimal tours (HEA parents) shared by the benchmarks below
+        LocalSearchSolver lsSolver = new LocalSearchSolver(new Random(SEED));
+        List<Solution> randomSolutions = new ArrayList<>();
+        List<Solution> localOptima = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Solution solution = lsSolver.generateRandomSolution(instance);
+            randomSolutions.add(solution);
+            localOptima.add(lsSolver.steepestLocalSearch(instance, solution, IntraRouteMoveType.EDGE_EXCHANGE));
+        }
+        List<Solution> partialSolutions = destroyRandomly(instance, localOptima, new Random(SEED));
+
+        // Delta evaluation: one op is a full neighborhood of deltas on one tour
+        DeltaProbe probe = new DeltaProbe();
+        List<Tour> tours = new ArrayList<>();
+        for (Solution solution : randomSolutions) {
+            tours.add(new Tour(solution.cycle, instance.size));
+        }
+        results.add(report(harness.measure(instance.name, "calculateEdgeExchangeDelta",
+                op -> probe.allEdgeExchangeDeltas(instance, tours.get(op % POOL_SIZE)))));
+        results.add(report(harness.measure(instance.name, "calculateInterDeltaDetailed",
+                op -> probe.allInterDeltasDetailed(instance, tours.get(op % POOL_SIZE)))));
+
+        // Full local search runs
+        Tour scratchTour = new Tour(instance.size);
+        results.add(report(harness.measure(instance.name, "steepestLocalSearch",
+                op -> lsSolver.steepestLocalSearch(instance, randomSolutions.get(op % POOL_SIZE),
+                        IntraRouteMoveType.EDGE_EXCHANGE, scratchTour).totalCost)));
+
+        LocalSearchCandidateMovesSolver candidateSolver = new LocalSearchCandidateMovesSolver(new Random(SEED));
+        results.add(report(harness.measure(instance.name, "steepestLocalSearchCandidate",
+                op -> candidateSolver.steepestLocalSearch(instance, StartingSolutionType.RANDOM,
+                        IntraRouteMoveType.EDGE_EXCHANGE).totalCost)));
+        results.add(report(harness.measure(instance.name, "dontLookBitsLocalSearch",
+                op -> candidateSolver.dontLookBitsLocalSearch(instance, randomSolutions.get(op % POOL_SIZE),
+                        IntraRouteMoveType.EDGE_EXCHANGE).totalCost)));
+
+        DeltaLocalSearchSolver deltaSolver = new DeltaLocalSearchSolver(new Random(SEED));
+        results.add(report(harness.measure(instance.name, "deltaLocalSearch",
+                op -> deltaSolver.deltaLocalSearch(instance, StartingSolutionType.RANDOM,
+                        IntraRouteMoveType.EDGE_EXCHANGE).totalCost)));
+
+        LinKernighanSolver lkSolver = new LinKernighanSolver(new Random(SEED));
+        results.add(report(harness.measure(instance.name, "variableDepthSearch",
+                op -> lkSolver.variableDepthSearch(instance, randomSolutions.get(op % POOL_SIZE)).totalCost)));
+
+        // Repair works in place, so every op repairs its own copy of a destroyed local optimum
+        LargeNeighborhoodSearchSolver lnsSolver = new LargeNeighborhoodSearchSolver();
+        results.add(report(harness.measure(instance.name, "repairWeighted", op -> {
+            Solution partial = copySolution(partialSolutions.get(op % POOL_SIZE));
+            lnsSolver.repairWeighted(instance, partial, 0.5, 0.5);
+            return partial.totalCost;
+        })));
+
+        // HEA recombination between pairs of locally optimal parents
+        HybridEvolutionarySolver heaSolver = new HybridEvolutionarySolver(new Random(SEED));
+        for (RecombinationOperator operator : RecombinationOperator.values()) {
+            results.add(report(harness.measure(instance.name, "recombination_" + operator,
+                    op -> heaSolver.recombine(instance, localOptima.get(op % POOL_SIZE),
+                            localOptima.get((op + 1) % POOL_SIZE), operator).totalCost)));
+        }
+
+        // Similarity of one local optimum to all others, as in the global convexity experiment
+        results.add(report(harness.measure(instance.name, "edgeBasedSimilarity",
+                op -> similarityToAll(localOptima, op % POOL_SIZE, true))));
+        results.add(report(harness.measure(instance.name, "nodeBasedSimilarity",
+                op -> similarityToAll(localOptima, op % POOL_SIZE, false))));
+
+        return results;
+    }
+
+    private BenchmarkResult report(BenchmarkResult result) {
+        System.out.printf("%s %s - %.2f ops/s (min %.2f, max %.2f), %.3f us/op, %.1f B/op, %.2f MB/s%n",
+                result.instanceName,
+                result.benchmarkName,
+                result.avgOpsPerSecond,
+                result.minOpsPerSecond,
+                result.maxOpsPerSecond,
+                result.avgTimePerOpUs,
+                result.bytesPerOp,
+                result.allocationRateMBs);
+        return result;
+    }
+
+    private int similarityToAll(List<Solution> solutions, int index, boolean edgeBased) {
+        double total = 0;
+        for (int j = 0; j < solutions.size(); j++) {
+            if (j == index) continue;
+            total += edgeBased
+                    ? SimilarityMetrics.edgeBasedSimilarity(solutions.get(index), solutions.get(j))
+                    : SimilarityMetrics.nodeBasedSimilarity(solutions.get(index), solutions.get(j));
+        }
+        return (int) (total * 1000);
+    }
+
+    // Removes 30% of the nodes of every solution at random, leaving partial solutions for repairWeighted
+    private List<Solution> destroyRandomly(Instance instance, List<Solution> solutions, Random random) {
+        List<Solution> partialSolutions = new ArrayList<>();
+        for (Solution solution : solutions) {
+            List<Integer> cycle = new ArrayList<>(solution.cycle);
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < cycle.size(); i++) positions.add(i);
+            Collections.shuffle(positions, random);
+
+            int numToRemove = (int) (cycle.size() * 0.30);
+            List<Integer> toRemove = positions.subList(0, numToRemove);
+            toRemove.sort(Collections.reverseOrder());
+            for (int pos : toRemove) cycle.remove(pos);
+
+            // Repair continues from the objective of the partial solution
+            List<Node> selectedNodes = new ArrayList<>();
+            int totalCost = 0;
+            int totalDistance = 0;
+            for (int i = 0; i < cycle.size(); i++) {
+                int nodeId = cycle.get(i);
+                selectedNodes.add(instance.nodes.get(nodeId));
+                totalCost += instance.costs[nodeId];
+                totalDistance += instance.distance(nodeId, cycle.get((i + 1) % cycle.size()));
+            }
+            partialSolutions.add(new Solution(selectedNodes, cycle, totalCost + totalDistance, totalDistance, 0));
+        }
+        return partialSolutions;
+    }
+
+    private Solution copySolution(Solution solution) {
+        return new Solution(new ArrayList<>(solution.selectedNodes), new ArrayList<>(solution.cycle),
+                solution.totalCost, solution.totalDistance, solution.totalRunningTime);
+    }
+
+    // Exposes the protected delta evaluations of LocalSearchSolver
+    private static class DeltaProbe extends LocalSearchSolver {
+
+        int allEdgeExchangeDeltas(Instance instance, Tour tour) {
+            int sum = 0;
+            for (int i = 0; i < tour.size; i++) {
+                for (int j = i + 2; j < tour.size; j++) {
+                    if (i == 0 && j == tour.size - 1) continue; // Skip adjacent edges
+                    sum += calculateEdgeExchangeDelta(instance, tour, i, j);
+                }
+            }
+            return sum;
+        }
+
+        int allInterDeltasDetailed(Instance instance, Tour tour) {
+            int sum = 0;
+            for (int pos = 0; pos < tour.size; pos++) {
+                int selectedId = tour.get(pos);
+                for (int nodeId = 0; nodeId < instance.size; nodeId++) {
+                    if (!tour.contains(nodeId)) {
+                        DeltaResult deltaResult = calculateInterDeltaDetailed(instance, tour, selectedId, nodeId);
+                        sum += deltaResult.totalDelta;
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import LocalSearch.LocalSearchSolver;
 import LocalSearch.StartingSolutionType;
 import Utilities.*;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -38,19 +37,15 @@ public class GlobalConvexityExperimentRunner extends ExperimentRunner implements
 
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
-        List<Solution> solutions = new ArrayList<>();
-
-        for (int i = 0; i < numIterations; i++) {
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, LocalSearchSolver::new, (worker, i, random) -> {
             Solution solution = null;
 
             if (methodName.equals("greedyLocalSearch")) {
-                solution = solver.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
+                solution = worker.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
             }
 
-            if (solution != null) {
-                solutions.add(solution);
-            }
-        }
+            return solution;
+        });
 
         return experimentStatsCalculations(instance, methodName, solutions);
     }
@@ -72,41 +67,36 @@ public class GlobalConvexityExperimentRunner extends ExperimentRunner implements
 
         // Export detailed solutions for each method
         for (ExperimentResult result : results) {
-            String filename = String.format("%s/%s_%s_solutions.csv",
-                    outputDir,
-                    result.instanceName,
-                    result.methodName);
+            String filename = solutionsFile(outputDir, result.instanceName, result.methodName);
             exportSolutionsCSV(result, filename, result.bestSolutionId);
+            if (archiveOutput()) {
+                SolutionArchive.write(SolutionArchive.archiveFileFor(filename), result.solutions);
+            }
         }
     }
 
     private void exportSummaryCSV(List<ExperimentResult> results, String filename) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            // Write header
-            writer.append("Instance,Method,MinCost,MaxCost,AvgCost,MinTime,MaxTime,AvgTime,NumSolutions,BestSolutionID\n");
-
-            // Write data
+        try (CsvSink sink = new CsvSink(filename, "Instance,Method,MinCost,MaxCost,AvgCost,MinTime,MaxTime,AvgTime,NumSolutions,BestSolutionID")) {
             for (ExperimentResult result : results) {
-                writer.append(String.format("%s,%s,%d,%d,%.2f,%d,%d,%.2f,%d,%d\n",
-                        result.instanceName,
-                        result.methodName,
-                        result.minCost,
-                        result.maxCost,
-                        result.avgCost,
-                        result.minRunningTime,
-                        result.maxRunningTime,
-                        result.avgRunningTime,
-                        result.numSolutions,
-                        result.bestSolutionId));
+                StringBuilder line = new StringBuilder(96);
+                line.append(result.instanceName).append(',')
+                        .append(result.methodName).append(',')
+                        .append(result.minCost).append(',')
+                        .append(result.maxCost).append(',');
+                CsvSink.appendDecimal(line, result.avgCost, 2).append(',')
+                        .append(result.minRunningTime).append(',')
+                        .append(result.maxRunningTime).append(',');
+                CsvSink.appendDecimal(line, result.avgRunningTime, 2).append(',')
+                        .append(result.numSolutions).append(',')
+                        .append(result.bestSolutionId);
+                sink.writeLine(line.toString());
             }
         }
     }
 
     private void exportSolutionsCSV(ExperimentResult result, String filename, int bestSolutionId) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            // Write header
-            writer.append("SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle," +
-                    "Avg1000Edge,Avg1000Node,BestOf1000Edge,BestOf1000Node,BestEverEdge,BestEverNode\n");
+        try (CsvSink sink = new CsvSink(filename, "SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle," +
+                "Avg1000Edge,Avg1000Node,BestOf1000Edge,BestOf1000Node,BestEverEdge,BestEverNode")) {
 
             // Write each solution
             for (int i = 0; i < result.solutions.size(); i++) {
@@ -135,30 +125,18 @@ public class GlobalConvexityExperimentRunner extends ExperimentRunner implements
                 double BestEverNode = calculateSimilarity(sol, bestSolutionEver, SimilarityType.NODE_BASED);
 
 
-                int objectiveFunction = sol.totalCost + sol.totalDistance;
-
-                // Convert cycle to string
-                String cycleStr = sol.cycle.toString()
-                        .replace("[", "")
-                        .replace("]", "")
-                        .replace(", ", "-");
-
-                writer.append(String.format("%d,%d,%d,%d,%d,%d,\"%s\",%f,%f,%f,%f,%f,%f\n",
-                        i + 1,
-                        sol.totalCost,
-                        sol.selectedNodes.size(),
-                        sol.totalDistance,
-                        objectiveFunction,
-                        sol.totalRunningTime,
-                        cycleStr,
-                        Avg1000Edge,
-                        Avg1000Node,
-                        BestOf1000Edge,
-                        BestOf1000Node,
-                        BestEverEdge,
-                        BestEverNode
-
-                ));
+                StringBuilder line = new StringBuilder(160 + 4 * sol.cycle.size());
+                line.append(i + 1).append(',')
+                        .append(sol.totalCost).append(',')
+                        .append(sol.selectedNodes.size()).append(',')
+                        .append(sol.totalDistance).append(',')
+                        .append(sol.totalCost + sol.totalDistance).append(',')
+                        .append(sol.totalRunningTime).append(',');
+                CsvSink.appendCycle(line, sol.cycle);
+                for (double similarity : new double[]{Avg1000Edge, Avg1000Node, BestOf1000Edge, BestOf1000Node, BestEverEdge, BestEverNode}) {
+                    CsvSink.appendDecimal(line.append(','), similarity, 6);
+                }
+                sink.writeLine(line.toString());
             }
         }
     }
@@ -4,7 +4,6 @@ import Utilities.*;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 public class GreedyHeuristicsExperimentRunner extends ExperimentRunner implements ExperimentRunnerInterface {
 
@@ -31,33 +30,28 @@ public class GreedyHeuristicsExperimentRunner extends ExperimentRunner implement
 
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
-        List<Solution> solutions = new ArrayList<>();
-
-        for (int i = 0; i < numIterations; i++) {
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, GreedyHeuristicsSolver::new, (worker, i, random) -> {
             Solution solution = null;
 
             switch (methodName) {
                 case "RandomSolution":
-                    solution = solver.randomSolution(instance);
+                    solution = worker.randomSolution(instance);
                     break;
                 case "NearestNeighborEndOnly":
-                    solution = solver.nearestNeighborEndOnly(instance);
+                    solution = worker.nearestNeighborEndOnly(instance);
                     break;
                 case "NearestNeighborAllPositions":
-                    solution = solver.nearestNeighborAllPositions(instance);
+                    solution = worker.nearestNeighborAllPositions(instance);
                     break;
                 case "GreedyCycle":
                     // Run for each node as starting point
-                    Random rand = new Random();
-                    Node startNode = instance.nodes.get(rand.nextInt(instance.nodes.size()));
-                    solution = solver.greedyCycle(instance, startNode);
+                    Node startNode = instance.nodes.get(random.nextInt(instance.nodes.size()));
+                    solution = instance.constructions.get("greedyCycle", startNode.id, () -> worker.greedyCycle(instance, startNode));
                     break;
             }
 
-            if (solution != null) {
-                solutions.add(solution);
-            }
-        }
+            return solution;
+        });
 
         return experimentStatsCalculations(instance, methodName, solutions);
     }
@@ -10,13 +10,19 @@ import java.util.Random;
 
 public class GreedyHeuristicsSolver extends Solver {
 
+    private Random random;
+
     public GreedyHeuristicsSolver(){
+        this(new Random());
+    }
 
+    public GreedyHeuristicsSolver(Random random){
+        this.random = random;
     }
 
     public Solution randomSolution(Instance instance) {
-        int startTime = (int) System.currentTimeMillis();
-        Random rand = new Random();
+        long startTime = System.nanoTime();
+        Random rand = random;
         int n = instance.nodes.size();
         int numToSelect = (int) Math.ceil(n / 2.0);
 
@@ -32,20 +38,19 @@ public class GreedyHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(nod -> nod.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
     public Solution nearestNeighborEndOnly(Instance instance) {
 
-        int startTime = (int) System.currentTimeMillis();
-        Random rand = new Random();
+        long startTime = System.nanoTime();
+        Random rand = random;
 
         List<Node> allNodes = new ArrayList<>(instance.nodes);
         Node startNode = allNodes.get(rand.nextInt(allNodes.size()));
@@ -69,9 +74,9 @@ public class GreedyHeuristicsSolver extends Solver {
             int minIncrease = Integer.MAX_VALUE;
 
             for (Node candidate : remaining) {
-                int distToCandidate = instance.distanceMatrix[lastNode.id][candidate.id];
-                int distCandidateToFirst = instance.distanceMatrix[candidate.id][firstNode.id];
-                int distLastToFirst = instance.distanceMatrix[lastNode.id][firstNode.id];
+                int distToCandidate = instance.distance(lastNode.id, candidate.id);
+                int distCandidateToFirst = instance.distance(candidate.id, firstNode.id);
+                int distLastToFirst = instance.distance(lastNode.id, firstNode.id);
 
                 int distanceIncrease = distToCandidate + distCandidateToFirst - distLastToFirst;
                 int objectiveIncrease = distanceIncrease + candidate.cost;
@@ -94,20 +99,19 @@ public class GreedyHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
 
     public Solution nearestNeighborAllPositions(Instance instance) {
-        int startTime = (int) System.currentTimeMillis();
-        Random rand = new Random();
+        long startTime = System.nanoTime();
+        Random rand = random;
         List<Node> allNodes = new ArrayList<>(instance.nodes);
         Node startNode = allNodes.get(rand.nextInt(allNodes.size()));
 
@@ -132,7 +136,7 @@ public class GreedyHeuristicsSolver extends Solver {
                 // 1. First, find the distance from this candidate to the *nearest* node in the tour
                 int minDistanceToTour = Integer.MAX_VALUE;
                 for (Node inTour : selected) {
-                    int distance = instance.distanceMatrix[inTour.id][candidate.id];
+                    int distance = instance.distance(inTour.id, candidate.id);
                     if (distance < minDistanceToTour) {
                         minDistanceToTour = distance;
                     }
@@ -158,9 +162,9 @@ public class GreedyHeuristicsSolver extends Solver {
                     int prevNodeId = order.get(i);
                     int nextNodeId = order.get((i + 1) % order.size());
 
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][bestCandidateToAdd.id];
-                    int distCandidateToNext = instance.distanceMatrix[bestCandidateToAdd.id][nextNodeId];
+                    int distPrevToNext = instance.distance(prevNodeId, nextNodeId);
+                    int distPrevToCandidate = instance.distance(prevNodeId, bestCandidateToAdd.id);
+                    int distCandidateToNext = instance.distance(bestCandidateToAdd.id, nextNodeId);
 
                     int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
 
@@ -184,21 +188,20 @@ public class GreedyHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
 
 
 
     public Solution greedyCycle(Instance instance, Node startNode) {
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
         List<Node> selected = new ArrayList<>();
         List<Integer> order = new ArrayList<>();
         selected.add(startNode);
@@ -220,9 +223,9 @@ public class GreedyHeuristicsSolver extends Solver {
                     int prevNodeId = order.get(pos);
                     int nextNodeId = order.get((pos + 1) % order.size());
 
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][candidate.id];
-                    int distCandidateToNext = instance.distanceMatrix[candidate.id][nextNodeId];
+                    int distPrevToNext = instance.distance(prevNodeId, nextNodeId);
+                    int distPrevToCandidate = instance.distance(prevNodeId, candidate.id);
+                    int distCandidateToNext = instance.distance(candidate.id, nextNodeId);
 
                     int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
                     int objectiveIncrease = distanceIncrease + candidate.cost;
@@ -247,14 +250,13 @@ public class GreedyHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
     public List<Solution> generateSolutions(Instance instance) {
@@ -269,7 +271,7 @@ public class GreedyHeuristicsSolver extends Solver {
         for (Node startNode : instance.nodes) {
             solutions.add(nearestNeighborEndOnly(instance)); // uses random start internally
             solutions.add(nearestNeighborAllPositions(instance)); // uses random start internally
-            solutions.add(greedyCycle(instance, startNode));
+            solutions.add(instance.constructions.get("greedyCycle", startNode.id, () -> greedyCycle(instance, startNode)));
         }
 
         return solutions;
@@ -2,30 +2,57 @@ package GreedyRegretHeuristics;
 
 import Utilities.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 public class GreedyRegretHeuristicsExperimentRunner extends ExperimentRunner implements ExperimentRunnerInterface {
 
     public GreedyRegretHeuristicsSolver solver;
+    private String constructionStoreDir = null;
 
     public GreedyRegretHeuristicsExperimentRunner() {
         this.solver = new GreedyRegretHeuristicsSolver();
 
     }
 
+    // Opt-in: constructions are kept in <directory>/<instance>_constructions.csv, so later runs on the
+    // same instance reuse them instead of constructing again
+    public void setConstructionStore(String directory) {
+        this.constructionStoreDir = directory;
+    }
+
     @Override
     public List<ExperimentResult> runExperiments(Instance instance, int numIterations) {
         List<ExperimentResult> results = new ArrayList<>();
 
-        // Test each method
-        results.add(testMethod(instance, "greedy2RegretNearestNeighbor", numIterations));
-        results.add(testMethod(instance, "greedyWeightedRegretNearestNeighbor", numIterations));
+        if (constructionStoreDir != null) {
+            try {
+                instance.constructions.enableDiskStore(constructionStoreDir);
+            } catch (IOException e) {
+                System.err.println("Error opening construction cache: " + e.getMessage());
+            }
+        }
 
-        results.add(testMethod(instance, "greedy2RegretGreedyCycle", numIterations));
-        results.add(testMethod(instance, "greedyWeightedRegretGreedyCycle", numIterations));
+        try {
+            // Test each method
+            results.add(testMethod(instance, "greedy2RegretNearestNeighbor", numIterations));
+            results.add(testMethod(instance, "greedyWeightedRegretNearestNeighbor", numIterations));
 
+            results.add(testMethod(instance, "greedy2RegretGreedyCycle", numIterations));
+            results.add(testMethod(instance, "greedyWeightedRegretGreedyCycle", numIterations));
+
+            // Running times of cached constructions are those of their first run
+            if (constructionStoreDir != null) {
+                System.out.println("Construction cache hits: " + instance.constructions.hits());
+            }
+        } finally {
+            try {
+                instance.constructions.closeDiskStore();
+            } catch (IOException e) {
+                System.err.println("Error writing construction cache: " + e.getMessage());
+            }
+        }
 
         return results;
     }
@@ -33,33 +60,31 @@ public class GreedyRegretHeuristicsExperimentRunner extends ExperimentRunner imp
 
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
-        List<Solution> solutions = new ArrayList<>();
-
-
-        for (int i = 0; i < numIterations; i++) {
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, random -> new GreedyRegretHeuristicsSolver(), (worker, i, random) -> {
             Solution solution = null;
-            int r = new Random().nextInt(instance.nodes.size());
+            int r = random.nextInt(instance.nodes.size());
             switch (methodName) {
                 case "greedy2RegretNearestNeighbor":
-                    solution = solver.greedy2RegretNearestNeighbor(instance,instance.nodes.get(r));
+                    solution = instance.constructions.get(methodName, r,
+                            () -> worker.greedy2RegretNearestNeighbor(instance, instance.nodes.get(r)));
                     break;
                 case "greedy2RegretGreedyCycle":
-                    solution = solver.greedy2RegretGreedyCycle(instance, instance.nodes.get(i));
+                    solution = instance.constructions.get(methodName, i,
+                            () -> worker.greedy2RegretGreedyCycle(instance, instance.nodes.get(i)));
                     break;
                 case "greedyWeightedRegretNearestNeighbor":
-                    solution = solver.greedyWeightedRegretNearestNeighbor(instance,instance.nodes.get(r), 0.5, 0.5);
+                    solution = instance.constructions.get(methodName, r, 0.5, 0.5,
+                            () -> worker.greedyWeightedRegretNearestNeighbor(instance, instance.nodes.get(r), 0.5, 0.5));
                     break;
 
                 case "greedyWeightedRegretGreedyCycle":
-                    solution = solver.greedyWeightedRegretGreedyCycle(instance,instance.nodes.get(i),0.5,0.5);
+                    solution = instance.constructions.get(methodName, i, 0.5, 0.5,
+                            () -> worker.greedyWeightedRegretGreedyCycle(instance, instance.nodes.get(i), 0.5, 0.5));
                     break;
             }
 
-
-            if (solution != null) {
-                solutions.add(solution);
-            }
-        }
+            return solution;
+        });
 
         return experimentStatsCalculations(instance, methodName, solutions);
     }
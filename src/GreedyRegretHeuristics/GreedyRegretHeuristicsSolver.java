@@ -1,77 +1,58 @@
 package GreedyRegretHeuristics;
 
+import Utilities.Deadline;
+import Utilities.InsertionCache;
 import Utilities.Instance;
 import Utilities.Node;
 import Utilities.Solution;
 import Utilities.Solver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+// All four constructors insert through an InsertionCache, which keeps the best and second best insertion
+// of every remaining node up to date, so a step costs O(n) instead of rescanning every (candidate, edge) pair.
 public class GreedyRegretHeuristicsSolver extends Solver {
 
     public GreedyRegretHeuristicsSolver() {
     }
 
     public Solution greedy2RegretGreedyCycle(Instance instance, Node startNode) {
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
         List<Node> selected = new ArrayList<>();
         List<Integer> order = new ArrayList<>();
         selected.add(startNode);
         order.add(startNode.id);
 
-        List<Node> remaining = new ArrayList<>(instance.nodes);
-        remaining.remove(startNode);
+        // Remaining nodes in id order, ties go to the first one
+        InsertionCache cache = new InsertionCache(instance, order);
 
         int n = instance.nodes.size();
         int numToSelect = (int) Math.ceil(n / 2.0);
 
-        while (selected.size() < numToSelect && !remaining.isEmpty()) {
-            Node bestCandidate = null;
-            int bestPosition = -1;
+        while (selected.size() < numToSelect && cache.numUnselected > 0) {
+            int bestK = -1;
             int maxRegret = Integer.MIN_VALUE;
 
-            for (Node candidate : remaining) {
-                int bestIncrease = Integer.MAX_VALUE;
-                int secondBestIncrease = Integer.MAX_VALUE;
-                int bestPos = -1;
-
-                // Iterates N times, for N edges in the cycle.
-                for (int pos = 0; pos < order.size(); pos++) {
-                    int prevNodeId = order.get(pos);
-
-                    int nextNodeId = order.get((pos + 1) % order.size());
-
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][candidate.id];
-                    int distCandidateToNext = instance.distanceMatrix[candidate.id][nextNodeId];
-
-                    int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
-                    int objectiveIncrease = distanceIncrease + candidate.cost;
-
-                    if (objectiveIncrease < bestIncrease) {
-                        secondBestIncrease = bestIncrease;
-                        bestIncrease = objectiveIncrease;
-                        bestPos = pos + 1;
-                    } else if (objectiveIncrease < secondBestIncrease) {
-                        secondBestIncrease = objectiveIncrease;
-                    }
-                }
+            for (int k = 0; k < cache.numUnselected; k++) {
+                int candidateId = cache.unselected[k];
+                int bestIncrease = cache.bestCost[candidateId];
+                int secondBestIncrease = cache.secondCost[candidateId];
 
                 int regret = (secondBestIncrease == Integer.MAX_VALUE) ? bestIncrease : (secondBestIncrease - bestIncrease);
 
                 if (regret > maxRegret) {
                     maxRegret = regret;
-                    bestCandidate = candidate;
-                    bestPosition = bestPos;
+                    bestK = k;
                 }
             }
 
-            if (bestCandidate != null) {
+            if (bestK != -1) {
+                Node bestCandidate = instance.nodes.get(cache.unselected[bestK]);
+                int bestPosition = cache.insert(bestK);
                 selected.add(bestPosition, bestCandidate);
-                order.add(bestPosition, bestCandidate.id);
-                remaining.remove(bestCandidate);
             } else {
                 break;
             }
@@ -82,77 +63,51 @@ public class GreedyRegretHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
     public Solution greedyWeightedRegretGreedyCycle(Instance instance, Node startNode, double weightRegret, double weightObjective) {
 
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
         List<Node> selected = new ArrayList<>();
         List<Integer> order = new ArrayList<>();
         selected.add(startNode);
         order.add(startNode.id);
 
-        List<Node> remaining = new ArrayList<>(instance.nodes);
-        remaining.remove(startNode);
+        // Remaining nodes in id order, ties go to the first one
+        InsertionCache cache = new InsertionCache(instance, order);
 
         int n = instance.nodes.size();
         int numToSelect = (int) Math.ceil(n / 2.0);
 
-        while (selected.size() < numToSelect && !remaining.isEmpty()) {
-            Node bestCandidate = null;
-            int bestPosition = -1;
+        while (selected.size() < numToSelect && cache.numUnselected > 0) {
+            int bestK = -1;
             double maxWeightedScore = Double.NEGATIVE_INFINITY;
 
-            for (Node candidate : remaining) {
-                int bestIncrease = Integer.MAX_VALUE;
-                int secondBestIncrease = Integer.MAX_VALUE;
-                int bestPos = -1;
-
-
-                // Iterates N times, for N edges in the cycle.
-                for (int pos = 0; pos < order.size(); pos++) {
-                    int prevNodeId = order.get(pos);
-
-                    int nextNodeId = order.get((pos + 1) % order.size());
-
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][candidate.id];
-                    int distCandidateToNext = instance.distanceMatrix[candidate.id][nextNodeId];
-
-                    int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
-                    int objectiveIncrease = distanceIncrease + candidate.cost;
-
-                    if (objectiveIncrease < bestIncrease) {
-                        secondBestIncrease = bestIncrease;
-                        bestIncrease = objectiveIncrease;
-                        bestPos = pos + 1;
-                    } else if (objectiveIncrease < secondBestIncrease) {
-                        secondBestIncrease = objectiveIncrease;
-                    }
-                }
+            for (int k = 0; k < cache.numUnselected; k++) {
+                int candidateId = cache.unselected[k];
+                int bestIncrease = cache.bestCost[candidateId];
+                int secondBestIncrease = cache.secondCost[candidateId];
 
                 int regret = (secondBestIncrease == Integer.MAX_VALUE) ? bestIncrease : (secondBestIncrease - bestIncrease);
                 double weightedScore = weightRegret * regret - weightObjective * bestIncrease;
 
                 if (weightedScore > maxWeightedScore) {
                     maxWeightedScore = weightedScore;
-                    bestCandidate = candidate;
-                    bestPosition = bestPos;
+                    bestK = k;
                 }
             }
 
-            if (bestCandidate != null) {
+            if (bestK != -1) {
+                Node bestCandidate = instance.nodes.get(cache.unselected[bestK]);
+                int bestPosition = cache.insert(bestK);
                 selected.add(bestPosition, bestCandidate);
-                order.add(bestPosition, bestCandidate.id);
-                remaining.remove(bestCandidate);
             } else {
                 break;
             }
@@ -163,85 +118,57 @@ public class GreedyRegretHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
 
     public Solution greedy2RegretNearestNeighbor(Instance instance, Node startNode) {
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
         List<Node> selected = new ArrayList<>();
         List<Integer> order = new ArrayList<>();
         selected.add(startNode);
         order.add(startNode.id);
 
-        List<Node> remaining = new ArrayList<>(instance.nodes);
-        remaining.remove(startNode);
+        // Remaining nodes in id order, ties go to the first one
+        InsertionCache cache = new InsertionCache(instance, order);
+        // Minimum and second minimum distance from every remaining node to the tour
+        int[] minDistanceToTour = new int[instance.nodes.size()];
+        int[] secondMinDistanceToTour = new int[instance.nodes.size()];
+        initDistancesToTour(instance, startNode.id, minDistanceToTour, secondMinDistanceToTour);
 
         int n = instance.nodes.size();
         int numToSelect = (int) Math.ceil(n / 2.0);
 
-        while (selected.size() < numToSelect && !remaining.isEmpty()) {
+        while (selected.size() < numToSelect && cache.numUnselected > 0) {
             // Step 1: Find best candidate to add based on regret
-            Node bestCandidateToAdd = null;
+            int bestK = -1;
             int maxRegret = Integer.MIN_VALUE;
 
-            for (Node candidate : remaining) {
-                // Find minimum distance to any node in tour
-                int minDistanceToTour = Integer.MAX_VALUE;
-                int secondMinDistanceToTour = Integer.MAX_VALUE;
-
-                for (Node inTour : selected) {
-                    int distance = instance.distanceMatrix[inTour.id][candidate.id];
-                    if (distance < minDistanceToTour) {
-                        secondMinDistanceToTour = minDistanceToTour;
-                        minDistanceToTour = distance;
-                    } else if (distance < secondMinDistanceToTour) {
-                        secondMinDistanceToTour = distance;
-                    }
-                }
+            for (int k = 0; k < cache.numUnselected; k++) {
+                Node candidate = instance.nodes.get(cache.unselected[k]);
 
-                int bestMetric = minDistanceToTour + candidate.cost;
-                int secondBestMetric = secondMinDistanceToTour + candidate.cost;
+                int bestMetric = minDistanceToTour[candidate.id] + candidate.cost;
+                int secondBestMetric = secondMinDistanceToTour[candidate.id] + candidate.cost;
                 int regret = secondBestMetric - bestMetric;
 
                 if (regret > maxRegret) {
                     maxRegret = regret;
-                    bestCandidateToAdd = candidate;
+                    bestK = k;
                 }
             }
 
-            // Step 2: Find best position to insert the selected candidate
-            if (bestCandidateToAdd != null) {
-                int bestPosition = -1;
-                int minIncrease = Integer.MAX_VALUE;
-
-                for (int pos = 0; pos < order.size(); pos++) {
-                    int prevNodeId = order.get(pos);
-                    int nextNodeId = order.get((pos + 1) % order.size());
-
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][bestCandidateToAdd.id];
-                    int distCandidateToNext = instance.distanceMatrix[bestCandidateToAdd.id][nextNodeId];
-
-                    int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
-                    int objectiveIncrease = distanceIncrease + bestCandidateToAdd.cost;
-
-                    if (objectiveIncrease < minIncrease) {
-                        minIncrease = objectiveIncrease;
-                        bestPosition = pos + 1;
-                    }
-                }
-
+            // Step 2: Insert the selected candidate at its best position
+            if (bestK != -1) {
+                Node bestCandidateToAdd = instance.nodes.get(cache.unselected[bestK]);
+                int bestPosition = cache.insert(bestK);
                 selected.add(bestPosition, bestCandidateToAdd);
-                order.add(bestPosition, bestCandidateToAdd.id);
-                remaining.remove(bestCandidateToAdd);
+                updateDistancesToTour(instance, bestCandidateToAdd.id, cache, minDistanceToTour, secondMinDistanceToTour);
             } else {
                 break;
             }
@@ -251,84 +178,57 @@ public class GreedyRegretHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
     }
 
 
     public Solution greedyWeightedRegretNearestNeighbor(Instance instance, Node startNode, double weightRegret, double weightObjective) {
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
         List<Node> selected = new ArrayList<>();
         List<Integer> order = new ArrayList<>();
         selected.add(startNode);
         order.add(startNode.id);
 
-        List<Node> remaining = new ArrayList<>(instance.nodes);
-        remaining.remove(startNode);
+        // Remaining nodes in id order, ties go to the first one
+        InsertionCache cache = new InsertionCache(instance, order);
+        // Minimum and second minimum distance from every remaining node to the tour
+        int[] minDistanceToTour = new int[instance.nodes.size()];
+        int[] secondMinDistanceToTour = new int[instance.nodes.size()];
+        initDistancesToTour(instance, startNode.id, minDistanceToTour, secondMinDistanceToTour);
 
         int n = instance.nodes.size();
         int numToSelect = (int) Math.ceil(n / 2.0);
 
-        while (selected.size() < numToSelect && !remaining.isEmpty()) {
-            Node bestCandidateToAdd = null;
+        while (selected.size() < numToSelect && cache.numUnselected > 0) {
+            int bestK = -1;
             double maxWeightedScore = Double.NEGATIVE_INFINITY;
 
-            for (Node candidate : remaining) {
-                int minDistanceToTour = Integer.MAX_VALUE;
-                int secondMinDistanceToTour = Integer.MAX_VALUE;
-
-                for (Node inTour : selected) {
-                    int distance = instance.distanceMatrix[inTour.id][candidate.id];
-                    if (distance < minDistanceToTour) {
-                        secondMinDistanceToTour = minDistanceToTour;
-                        minDistanceToTour = distance;
-                    } else if (distance < secondMinDistanceToTour) {
-                        secondMinDistanceToTour = distance;
-                    }
-                }
+            for (int k = 0; k < cache.numUnselected; k++) {
+                Node candidate = instance.nodes.get(cache.unselected[k]);
 
-                int bestMetric = minDistanceToTour + candidate.cost;
-                int secondBestMetric = secondMinDistanceToTour + candidate.cost;
+                int bestMetric = minDistanceToTour[candidate.id] + candidate.cost;
+                int secondBestMetric = secondMinDistanceToTour[candidate.id] + candidate.cost;
                 int regret = secondBestMetric - bestMetric;
 
                 double weightedScore = weightRegret * regret - weightObjective * bestMetric;
 
                 if (weightedScore > maxWeightedScore) {
                     maxWeightedScore = weightedScore;
-                    bestCandidateToAdd = candidate;
+                    bestK = k;
                 }
             }
 
-            if (bestCandidateToAdd != null) {
-                int bestPosition = -1;
-                int minIncrease = Integer.MAX_VALUE;
-
-                for (int pos = 0; pos < order.size(); pos++) {
-                    int prevNodeId = order.get(pos);
-                    int nextNodeId = order.get((pos + 1) % order.size());
-
-                    int distPrevToNext = instance.distanceMatrix[prevNodeId][nextNodeId];
-                    int distPrevToCandidate = instance.distanceMatrix[prevNodeId][bestCandidateToAdd.id];
-                    int distCandidateToNext = instance.distanceMatrix[bestCandidateToAdd.id][nextNodeId];
-
-                    int distanceIncrease = distPrevToCandidate + distCandidateToNext - distPrevToNext;
-                    int objectiveIncrease = distanceIncrease + bestCandidateToAdd.cost;
-
-                    if (objectiveIncrease < minIncrease) {
-                        minIncrease = objectiveIncrease;
-                        bestPosition = pos + 1;
-                    }
-                }
-
+            if (bestK != -1) {
+                Node bestCandidateToAdd = instance.nodes.get(cache.unselected[bestK]);
+                int bestPosition = cache.insert(bestK);
                 selected.add(bestPosition, bestCandidateToAdd);
-                order.add(bestPosition, bestCandidateToAdd.id);
-                remaining.remove(bestCandidateToAdd);
+                updateDistancesToTour(instance, bestCandidateToAdd.id, cache, minDistanceToTour, secondMinDistanceToTour);
             } else {
                 break;
             }
@@ -338,14 +238,35 @@ public class GreedyRegretHeuristicsSolver extends Solver {
         for (int i = 0; i < order.size(); i++) {
             int from = order.get(i);
             int to = order.get((i + 1) % order.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
         int totalNodeCost = selected.stream().mapToInt(node -> node.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selected, order, totalCost, totalDistance, endTime - startTime);
+        return new Solution(selected, order, totalCost, totalDistance, Deadline.millisSince(startTime));
+    }
+
+    private void initDistancesToTour(Instance instance, int startNodeId, int[] minDistanceToTour, int[] secondMinDistanceToTour) {
+        Arrays.fill(secondMinDistanceToTour, Integer.MAX_VALUE);
+        for (int i = 0; i < minDistanceToTour.length; i++) {
+            minDistanceToTour[i] = instance.distance(startNodeId, i);
+        }
+    }
+
+    // A node joined the tour, so it becomes a candidate for the two nearest tour nodes of every remaining node
+    private void updateDistancesToTour(Instance instance, int addedNodeId, InsertionCache cache,
+                                       int[] minDistanceToTour, int[] secondMinDistanceToTour) {
+        for (int k = 0; k < cache.numUnselected; k++) {
+            int candidateId = cache.unselected[k];
+            int distance = instance.distance(addedNodeId, candidateId);
+            if (distance < minDistanceToTour[candidateId]) {
+                secondMinDistanceToTour[candidateId] = minDistanceToTour[candidateId];
+                minDistanceToTour[candidateId] = distance;
+            } else if (distance < secondMinDistanceToTour[candidateId]) {
+                secondMinDistanceToTour[candidateId] = distance;
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
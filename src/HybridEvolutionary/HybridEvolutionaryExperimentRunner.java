@@ -1,5 +1,6 @@
 package HybridEvolutionary;
 
+import LocalSearch.LocalSearchSolver;
 import Utilities.*;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -9,11 +10,30 @@ import java.util.List;
 public class HybridEvolutionaryExperimentRunner extends ExperimentRunner implements ExperimentRunnerInterface {
 
     public HybridEvolutionarySolver solver;
+    private int numIslands = 1;
+    private long migrationIntervalMs = 500;
+    private int offspringBatchSize = 1;
 
     public HybridEvolutionaryExperimentRunner() {
         this.solver = new HybridEvolutionarySolver();
     }
 
+    // With more than one island every run uses the island model instead of a single population
+    public void setIslands(int numIslands, long migrationIntervalMs) {
+        this.numIslands = Math.max(1, numIslands);
+        this.migrationIntervalMs = migrationIntervalMs;
+    }
+
+    // With a batch size above one, offspring are generated in parallel batches (ignored in island mode)
+    public void setOffspringBatchSize(int offspringBatchSize) {
+        this.offspringBatchSize = Math.max(1, offspringBatchSize);
+    }
+
+    // Replaces the local search applied to offspring, e.g. with a LinKernighanSolver (null restores the default)
+    public void setImprovementSolver(LocalSearchSolver improvementSolver) {
+        solver.setImprovementSolver(improvementSolver);
+    }
+
     public List<ExperimentResult> runExperiments(Instance instance, int numIterations, long timeLimitMs) {
         List<ExperimentResult> results = new ArrayList<>();
 
@@ -31,7 +51,14 @@ public class HybridEvolutionaryExperimentRunner extends ExperimentRunner impleme
 
         for (int i = 0; i < numIterations; i++) {
             System.out.println("---Iteration " + (i + 1) + "/" + numIterations+"---");
-            Solution solution = solver.hybridEvolutionary(instance, timeLimitMs, operator, useLS);
+            Solution solution;
+            if (numIslands > 1) {
+                solution = solver.hybridEvolutionaryIslands(instance, timeLimitMs, operator, useLS, numIslands, migrationIntervalMs);
+            } else if (offspringBatchSize > 1) {
+                solution = solver.hybridEvolutionaryBatched(instance, timeLimitMs, operator, useLS, offspringBatchSize);
+            } else {
+                solution = solver.hybridEvolutionary(instance, timeLimitMs, operator, useLS);
+            }
             if (solution != null) {
                 solutions.add(solution);
                 System.out.println("    Cost = " + solution.totalCost + ", LS Calls = " + solution.iterations);
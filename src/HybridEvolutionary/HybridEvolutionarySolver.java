@@ -7,81 +7,280 @@ import LocalSearch.StartingSolutionType;
 import Utilities.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class HybridEvolutionarySolver extends Solver {
 
     private LocalSearchSolver localSearchSolver;
+    // Local search applied to offspring, the LNS steepest search when not set
+    private LocalSearchSolver improvementSolver = null;
     private Random random;
     private static final int POPULATION_SIZE = 20;
+    // Reused by recombination, every thread works with its own solver instance
+    private EdgeSet parent1Edges = new EdgeSet(0);
+    private EdgeSet parent2Edges = new EdgeSet(0);
 
     public HybridEvolutionarySolver() {
-        this.localSearchSolver = new LocalSearchSolver();
-        this.random = new Random();
+        this(new Random());
+    }
+
+    public HybridEvolutionarySolver(Random random) {
+        this.localSearchSolver = new LocalSearchSolver(random);
+        this.random = random;
+    }
+
+    // The solver is shared with batch workers and islands, so it must not keep state between calls
+    public void setImprovementSolver(LocalSearchSolver improvementSolver) {
+        this.improvementSolver = improvementSolver;
     }
 
     public Solution hybridEvolutionary(Instance instance, long timeLimitMs, RecombinationOperator operator, boolean useLocalSearchAfterRecombination) {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+
+        Solution bestSolution = evolve(instance, Deadline.afterMillis(timeLimitMs), operator, useLocalSearchAfterRecombination,
+                null, null, 0, null);
+
+        int totalTime = Deadline.millisSince(startTime);
+        bestSolution.totalRunningTime = totalTime;
+        return bestSolution;
+    }
+
+    // Generational-batch mode: each step creates batchSize offspring concurrently (recombination + LS on worker
+    // threads) and then offers them to the population one after another with the usual replacement rules.
+    public Solution hybridEvolutionaryBatched(Instance instance, long timeLimitMs, RecombinationOperator operator,
+                                              boolean useLocalSearchAfterRecombination, int batchSize) {
+        long startTime = System.nanoTime();
+        Deadline deadline = Deadline.afterMillis(timeLimitMs);
+
+        int numThreads = Math.min(batchSize, Runtime.getRuntime().availableProcessors());
+        OffspringBatch batch = new OffspringBatch(batchSize, Executors.newFixedThreadPool(numThreads));
+        Solution bestSolution;
+        try {
+            bestSolution = evolve(instance, deadline, operator, useLocalSearchAfterRecombination,
+                    null, null, 0, batch);
+        } finally {
+            batch.executor.shutdown();
+        }
+
+        int totalTime = Deadline.millisSince(startTime);
+        bestSolution.totalRunningTime = totalTime;
+        return bestSolution;
+    }
+
+    // Island model: numIslands populations evolve on their own threads under the same time limit.
+    // Every migrationIntervalMs each island sends a copy of its best solution to the next island (ring).
+    public Solution hybridEvolutionaryIslands(Instance instance, long timeLimitMs, RecombinationOperator operator,
+                                              boolean useLocalSearchAfterRecombination, int numIslands, long migrationIntervalMs) {
+        long startTime = System.nanoTime();
+        Deadline deadline = Deadline.afterMillis(timeLimitMs);
+
+        List<Queue<Solution>> inboxes = new ArrayList<>();
+        for (int i = 0; i < numIslands; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numIslands);
+        List<Future<Solution>> islands = new ArrayList<>();
+        for (int i = 0; i < numIslands; i++) {
+            HybridEvolutionarySolver island = new HybridEvolutionarySolver(new Random(random.nextLong()));
+            island.setImprovementSolver(improvementSolver);
+            Queue<Solution> inbox = inboxes.get(i);
+            Queue<Solution> outbox = inboxes.get((i + 1) % numIslands);
+            islands.add(executor.submit(() -> island.evolve(instance, deadline, operator,
+                    useLocalSearchAfterRecombination, inbox, outbox, migrationIntervalMs, null)));
+        }
+
+        Solution bestSolution = null;
+        int numLs = 0;
+        try {
+            for (Future<Solution> island : islands) {
+                Solution islandBest = island.get();
+                numLs += islandBest.iterations;
+                if (bestSolution == null || islandBest.totalCost < bestSolution.totalCost) {
+                    bestSolution = islandBest;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        int totalTime = Deadline.millisSince(startTime);
+        bestSolution.totalRunningTime = totalTime;
+        bestSolution.iterations = numLs;
+        return bestSolution;
+    }
+
+    // Steady-state evolution of one population until the deadline, which local search polls as well. When inbox/outbox are given, immigrants are
+    // taken from inbox on every iteration and a copy of the best solution is sent to outbox periodically.
+    // When batch is given, offspring are created batch.size at a time on the batch executor.
+    private Solution evolve(Instance instance, Deadline deadline, RecombinationOperator operator, boolean useLocalSearchAfterRecombination,
+                            Queue<Solution> inbox, Queue<Solution> outbox, long migrationIntervalMs, OffspringBatch batch) {
         int numLs = 0;
 
         // Initialize population
-        List<Solution> population = initializePopulation(instance);
+        List<Solution> population = initializePopulation(instance, deadline);
+        // Fingerprints of the current population members, kept in sync with every replacement
+        Set<Long> populationHashes = new HashSet<>();
+        for (Solution solution : population) {
+            populationHashes.add(solution.tourHash());
+        }
 
         Solution bestSolution = getBestSolution(population);
+        long migrationIntervalNanos = migrationIntervalMs * 1_000_000L;
+        long nextMigration = System.nanoTime() + migrationIntervalNanos;
+
+        while (!deadline.expired()) {
+            if (inbox != null) {
+                Solution immigrant;
+                while ((immigrant = inbox.poll()) != null) {
+                    addToPopulation(immigrant, population, populationHashes);
+                    if (immigrant.totalCost < bestSolution.totalCost) {
+                        bestSolution = immigrant;
+                    }
+                }
 
-        while (System.currentTimeMillis() - startTime < timeLimitMs) {
-            // Select two parents randomly
-            Solution parent1 = selectParent(population);
-            Solution parent2 = selectParent(population);
-
-            // Apply recombination
-            Solution offspring = null;
-            if (operator == RecombinationOperator.OPERATOR_1) {
-                offspring = recombinationOperator1(instance, parent1, parent2);
-            } else {
-                offspring = recombinationOperator2(instance, parent1, parent2);
+                if (System.nanoTime() - nextMigration >= 0) {
+                    outbox.offer(copySolution(bestSolution));
+                    nextMigration += migrationIntervalNanos;
+                }
             }
 
-            // Apply local search to offspring
-            if (useLocalSearchAfterRecombination) {
-                offspring = applyLocalSearch(instance, offspring);
-                numLs++;
+            List<Solution> offspringList;
+            if (batch == null) {
+                // Select two parents randomly
+                Solution parent1 = selectParent(population);
+                Solution parent2 = selectParent(population);
+                offspringList = List.of(createOffspring(instance, parent1, parent2, operator, useLocalSearchAfterRecombination, deadline));
+            } else {
+                offspringList = createOffspringBatch(instance, population, operator, useLocalSearchAfterRecombination, batch, deadline);
             }
 
-            // Add to population if unique and better than worst
-            if (!isDuplicateInPopulation(offspring, population)) {
-                // Replace worst solution in population
-                int worstIdx = getWorstSolutionIndex(population);
-                if (offspring.totalCost < population.get(worstIdx).totalCost) {
-                    population.set(worstIdx, offspring);
+            for (Solution offspring : offspringList) {
+                if (useLocalSearchAfterRecombination) {
+                    numLs++;
                 }
-            }
 
-            // Update best solution
-            if (offspring.totalCost < bestSolution.totalCost) {
-                bestSolution = offspring;
+                // Add to population if unique and better than worst
+                addToPopulation(offspring, population, populationHashes);
+
+                // Update best solution
+                if (offspring.totalCost < bestSolution.totalCost) {
+                    bestSolution = offspring;
+                }
             }
         }
 
-        int totalTime = (int) (System.currentTimeMillis() - startTime);
-        bestSolution.totalRunningTime = totalTime;
         bestSolution.iterations = numLs;
         return bestSolution;
     }
 
-    private List<Solution> initializePopulation(Instance instance) {
+    private Solution createOffspring(Instance instance, Solution parent1, Solution parent2,
+                                     RecombinationOperator operator, boolean useLocalSearchAfterRecombination, Deadline deadline) {
+        // Apply recombination
+        Solution offspring = recombine(instance, parent1, parent2, operator);
+
+        // Apply local search to offspring
+        if (useLocalSearchAfterRecombination) {
+            offspring = applyLocalSearch(instance, offspring, deadline);
+        }
+        return offspring;
+    }
+
+    public Solution recombine(Instance instance, Solution parent1, Solution parent2, RecombinationOperator operator) {
+        if (operator == RecombinationOperator.OPERATOR_1) {
+            return recombinationOperator1(instance, parent1, parent2);
+        } else {
+            return recombinationOperator2(instance, parent1, parent2);
+        }
+    }
+
+    private List<Solution> createOffspringBatch(Instance instance, List<Solution> population, RecombinationOperator operator,
+                                                boolean useLocalSearchAfterRecombination, OffspringBatch batch, Deadline deadline) {
+        // Parents are picked here so the population is only touched by this thread
+        List<Future<Solution>> futures = new ArrayList<>(batch.size);
+        for (int k = 0; k < batch.size; k++) {
+            Solution parent1 = selectParent(population);
+            Solution parent2 = selectParent(population);
+            futures.add(batch.executor.submit(() -> batch.workers.get()
+                    .createOffspring(instance, parent1, parent2, operator, useLocalSearchAfterRecombination, deadline)));
+        }
+
+        List<Solution> offspringList = new ArrayList<>(batch.size);
+        try {
+            for (Future<Solution> future : futures) {
+                offspringList.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return offspringList;
+    }
+
+    private class OffspringBatch {
+        final int size;
+        final ExecutorService executor;
+        // Recombination uses the solver's Random, so every pool thread works with its own solver
+        final ThreadLocal<HybridEvolutionarySolver> workers =
+                ThreadLocal.withInitial(() -> {
+                    HybridEvolutionarySolver worker = new HybridEvolutionarySolver(new Random(random.nextLong()));
+                    worker.setImprovementSolver(improvementSolver);
+                    return worker;
+                });
+
+        OffspringBatch(int size, ExecutorService executor) {
+            this.size = size;
+            this.executor = executor;
+        }
+    }
+
+    private void addToPopulation(Solution offspring, List<Solution> population, Set<Long> populationHashes) {
+        if (!isDuplicateInPopulation(offspring, populationHashes)) {
+            // Replace worst solution in population
+            int worstIdx = getWorstSolutionIndex(population);
+            if (offspring.totalCost < population.get(worstIdx).totalCost) {
+                populationHashes.remove(population.get(worstIdx).tourHash());
+                population.set(worstIdx, offspring);
+                populationHashes.add(offspring.tourHash());
+            }
+        }
+    }
+
+    private Solution copySolution(Solution solution) {
+        Solution copy = new Solution(new ArrayList<>(solution.selectedNodes), new ArrayList<>(solution.cycle),
+                solution.totalCost, solution.totalDistance, solution.totalRunningTime);
+        copy.iterations = solution.iterations;
+        return copy;
+    }
+
+    private List<Solution> initializePopulation(Instance instance, Deadline deadline) {
         List<Solution> population = new ArrayList<>();
+        Set<Long> populationHashes = new HashSet<>();
 
         while (population.size() < POPULATION_SIZE) {
             // Generate initial solution using local search
             Solution solution = localSearchSolver.greedyLocalSearch(
                     instance,
                     StartingSolutionType.RANDOM,
-                    IntraRouteMoveType.EDGE_EXCHANGE
+                    IntraRouteMoveType.EDGE_EXCHANGE,
+                    deadline
             );
 
             // Add if unique
-            if (!isDuplicateInPopulation(solution, population)) {
+            if (!isDuplicateInPopulation(solution, populationHashes)) {
                 population.add(solution);
+                populationHashes.add(solution.tourHash());
             }
         }
 
@@ -93,30 +292,21 @@ public class HybridEvolutionarySolver extends Solver {
     }
 
     private Solution recombinationOperator1(Instance instance, Solution parent1, Solution parent2) {
-        Set<Integer> p1Nodes = new HashSet<>(parent1.cycle);
-        Set<Integer> p2Nodes = new HashSet<>(parent2.cycle);
-
-        // Find common nodes
-        Set<Integer> commonNodes = new HashSet<>(p1Nodes);
-        commonNodes.retainAll(p2Nodes);
-
-        // Find common edges
-        Set<String> p1Edges = getEdges(parent1.cycle);
-        Set<String> p2Edges = getEdges(parent2.cycle);
-        Set<String> commonEdges = new HashSet<>(p1Edges);
-        commonEdges.retainAll(p2Edges);
+        // Common nodes and edges are looked up in the parents' edge sets
+        parent1Edges.load(parent1.cycle);
+        parent2Edges.load(parent2.cycle);
 
         // Build common subpaths
-        List<List<Integer>> subpaths = buildSubpathsFromCommonEdges(parent1.cycle, commonEdges, commonNodes);
+        List<List<Integer>> subpaths = buildSubpathsFromCommonEdges(parent1.cycle, parent2Edges);
 
         // Calculate how many nodes we need
         int targetSize = (int) Math.ceil(instance.nodes.size() / 2.0);
-        int currentSize = commonNodes.size();
+        int currentSize = parent1Edges.countCommonNodes(parent2Edges);
 
         // Add random nodes to reach target size
         List<Node> availableNodes = new ArrayList<>();
         for (Node node : instance.nodes) {
-            if (!commonNodes.contains(node.id)) {
+            if (!parent1Edges.containsNode(node.id) || !parent2Edges.containsNode(node.id)) {
                 availableNodes.add(node);
             }
         }
@@ -145,18 +335,10 @@ public class HybridEvolutionarySolver extends Solver {
 
         // Keep only common nodes
         List<Integer> filteredCycle = new ArrayList<>();
-        List<Node> filteredSelectedNodes = new ArrayList<>();
 
         for (Integer nodeId : baseParent.cycle) {
             if (otherNodes.contains(nodeId)) {
                 filteredCycle.add(nodeId);
-                // Find the node object
-                for (Node node : instance.nodes) {
-                    if (node.id == nodeId) {
-                        filteredSelectedNodes.add(node);
-                        break;
-                    }
-                }
             }
         }
 
@@ -170,33 +352,23 @@ public class HybridEvolutionarySolver extends Solver {
         return partialSolution;
     }
 
-    private Set<String> getEdges(List<Integer> cycle) {
-        Set<String> edges = new HashSet<>();
-        for (int i = 0; i < cycle.size(); i++) {
-            int from = cycle.get(i);
-            int to = cycle.get((i + 1) % cycle.size());
-            // Store edge in canonical form (smaller id first)
-            String edge = from < to ? from + "-" + to : to + "-" + from;
-            edges.add(edge);
-        }
-        return edges;
-    }
-
-    private List<List<Integer>> buildSubpathsFromCommonEdges(List<Integer> cycle, Set<String> commonEdges, Set<Integer> commonNodes) {
+    // A node of cycle is common when otherEdges contains it, and an edge of cycle is common when otherEdges
+    // contains it in either direction
+    private List<List<Integer>> buildSubpathsFromCommonEdges(List<Integer> cycle, EdgeSet otherEdges) {
         List<List<Integer>> subpaths = new ArrayList<>();
-        Set<Integer> visited = new HashSet<>();
+        boolean[] visited = new boolean[cycle.size()]; // indexed by position in cycle
 
         for (int i = 0; i < cycle.size(); i++) {
             int nodeId = cycle.get(i);
 
-            if (!commonNodes.contains(nodeId) || visited.contains(nodeId)) {
+            if (!otherEdges.containsNode(nodeId) || visited[i]) {
                 continue;
             }
 
             // Start a new subpath
             List<Integer> subpath = new ArrayList<>();
             subpath.add(nodeId);
-            visited.add(nodeId);
+            visited[i] = true;
 
             // Extend forward as long as we have common edges
             int current = i;
@@ -204,17 +376,16 @@ public class HybridEvolutionarySolver extends Solver {
                 int next = (current + 1) % cycle.size();
                 int nextNode = cycle.get(next);
 
-                if (!commonNodes.contains(nextNode) || visited.contains(nextNode)) {
+                if (!otherEdges.containsNode(nextNode) || visited[next]) {
                     break;
                 }
 
-                String edge = nodeId < nextNode ? nodeId + "-" + nextNode : nextNode + "-" + nodeId;
-                if (!commonEdges.contains(edge)) {
+                if (!otherEdges.containsEdge(nodeId, nextNode)) {
                     break;
                 }
 
                 subpath.add(nextNode);
-                visited.add(nextNode);
+                visited[next] = true;
                 current = next;
                 nodeId = nextNode;
             }
@@ -251,47 +422,47 @@ public class HybridEvolutionarySolver extends Solver {
         }
 
         if (pos == 0) {
-            return instance.distanceMatrix[nodeId][cycle.get(0)] +
-                    instance.distanceMatrix[cycle.get(cycle.size() - 1)][nodeId] -
-                    instance.distanceMatrix[cycle.get(cycle.size() - 1)][cycle.get(0)];
+            return instance.distance(nodeId, cycle.get(0)) +
+                    instance.distance(cycle.get(cycle.size() - 1), nodeId) -
+                    instance.distance(cycle.get(cycle.size() - 1), cycle.get(0));
         } else if (pos == cycle.size()) {
-            return instance.distanceMatrix[cycle.get(cycle.size() - 1)][nodeId] +
-                    instance.distanceMatrix[nodeId][cycle.get(0)] -
-                    instance.distanceMatrix[cycle.get(cycle.size() - 1)][cycle.get(0)];
+            return instance.distance(cycle.get(cycle.size() - 1), nodeId) +
+                    instance.distance(nodeId, cycle.get(0)) -
+                    instance.distance(cycle.get(cycle.size() - 1), cycle.get(0));
         } else {
             int prev = cycle.get(pos - 1);
             int next = cycle.get(pos);
-            return instance.distanceMatrix[prev][nodeId] +
-                    instance.distanceMatrix[nodeId][next] -
-                    instance.distanceMatrix[prev][next];
+            return instance.distance(prev, nodeId) +
+                    instance.distance(nodeId, next) -
+                    instance.distance(prev, next);
         }
     }
 
     private Solution buildSolutionFromCycle(Instance instance, List<Integer> cycle) {
-        List<Node> selectedNodes = new ArrayList<>();
+        List<Node> selectedNodes = new ArrayList<>(cycle.size());
+        int totalNodeCost = 0;
         for (int nodeId : cycle) {
-            for (Node node : instance.nodes) {
-                if (node.id == nodeId) {
-                    selectedNodes.add(node);
-                    break;
-                }
-            }
+            selectedNodes.add(instance.nodes.get(nodeId));
+            totalNodeCost += instance.costs[nodeId];
         }
 
         int totalDistance = 0;
         for (int i = 0; i < cycle.size(); i++) {
             int from = cycle.get(i);
             int to = cycle.get((i + 1) % cycle.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
 
-        int totalNodeCost = selectedNodes.stream().mapToInt(n -> n.cost).sum();
         int totalCost = totalDistance + totalNodeCost;
 
         return new Solution(selectedNodes, cycle, totalCost, totalDistance, 0);
     }
 
-    private Solution applyLocalSearch(Instance instance, Solution offspring) {
+    private Solution applyLocalSearch(Instance instance, Solution offspring, Deadline deadline) {
+        if (improvementSolver != null) {
+            return improvementSolver.steepestLocalSearch(instance, offspring, IntraRouteMoveType.EDGE_EXCHANGE, deadline);
+        }
+
         // Save the offspring cycle temporarily
         List<Integer> offspringCycle = new ArrayList<>(offspring.cycle);
         List<Node> offspringNodes = new ArrayList<>(offspring.selectedNodes);
@@ -302,16 +473,12 @@ public class HybridEvolutionarySolver extends Solver {
 
         // Better approach: Use steepest local search from LNS
         LargeNeighborhoodSearchSolver lnsSolver = new LargeNeighborhoodSearchSolver();
-        return lnsSolver.steepestLocalSearch(instance, offspring, IntraRouteMoveType.EDGE_EXCHANGE);
+        return lnsSolver.steepestLocalSearch(instance, offspring, IntraRouteMoveType.EDGE_EXCHANGE, deadline);
     }
 
-    private boolean isDuplicateInPopulation(Solution solution, List<Solution> population) {
-        for (Solution existing : population) {
-            if (existing.totalCost == solution.totalCost) {
-                return true;
-            }
-        }
-        return false;
+    // Same set of edges as a population member, regardless of rotation or direction
+    private boolean isDuplicateInPopulation(Solution solution, Set<Long> populationHashes) {
+        return populationHashes.contains(solution.tourHash());
     }
 
     private Solution getBestSolution(List<Solution> population) {
@@ -1,6 +1,7 @@
 package LargeNeighborhoodSearch;
 
 import LocalSearch.IntraRouteMoveType;
+import LocalSearch.LocalSearchSolver;
 import LocalSearch.StartingSolutionType;
 import Utilities.*;
 
@@ -19,6 +20,11 @@ public class LargeNeighborhoodSearchExperimentRunner extends ExperimentRunner im
 
     }
 
+    // Replaces the local search applied after every repair, e.g. with a LinKernighanSolver (null restores the default)
+    public void setImprovementSolver(LocalSearchSolver improvementSolver) {
+        solver.setImprovementSolver(improvementSolver);
+    }
+
     public List<ExperimentResult> runExperiments(Instance instance, int numIterations, int timeLimitMS) {
         List<ExperimentResult> results = new ArrayList<>();
 
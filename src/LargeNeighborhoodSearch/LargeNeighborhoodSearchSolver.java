@@ -1,11 +1,14 @@
 package LargeNeighborhoodSearch;
 
-import LocalSearch.DeltaResult;
 import LocalSearch.IntraRouteMoveType;
 import LocalSearch.LocalSearchCandidateMoves.LocalSearchCandidateMovesSolver;
+import LocalSearch.LocalSearchSolver;
 import LocalSearch.StartingSolutionType;
+import Utilities.Deadline;
 import Utilities.Instance;
+import Utilities.InsertionCache;
 import Utilities.Node;
+import Utilities.ObjectiveTracker;
 import Utilities.Solution;
 
 import java.util.*;
@@ -15,100 +18,33 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
     private static final double DESTROY_PERCENTAGE = 0.30;
     private static final int NUM_CANDIDATES = 10;
 
+    // Local search applied after repair, this solver's own steepest search unless replaced
+    private LocalSearchSolver improvementSolver = this;
+
     public LargeNeighborhoodSearchSolver() {
 
     }
 
-    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType){
-        int startTime = (int) System.currentTimeMillis();
-
-
-        // Make copies of the solution data
-        List<Node> selectedNodes = new ArrayList<>(startingSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(startingSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
-
-        int currentCost = startingSolution.totalCost;
-        int currentDistance = startingSolution.totalDistance;
-
-        boolean improved = true;
-
-        while (improved) {
-            improved = false;
-
-            int bestDelta = 0;
-            String bestMoveType = null;
-            int[] bestMove = null;
-            int bestDistanceDelta = 0;
-
-            // Evaluate all intra-route moves
-            List<int[]> intraMoves = generateIntraMoves(cycle.size(), intraRouteMoveType);
-            for (int[] move : intraMoves) {
-                int delta = calculateIntraDelta(instance, cycle, move, intraRouteMoveType);
-                if (delta < bestDelta) {
-                    bestDelta = delta;
-                    bestMoveType = "INTRA";
-                    bestMove = move;
-                }
-            }
-
-            // Evaluate all inter-route moves
-            List<int[]> interMoves = generateInterMoves(instance, selectedIds);
-            for (int[] move : interMoves) {
-                int selectedNodeId = move[0];
-                int nonSelectedNodeId = move[1];
-
-                DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes,
-                        selectedNodeId, nonSelectedNodeId);
-                if (deltaResult.totalDelta < bestDelta) {
-                    bestDelta = deltaResult.totalDelta;
-                    bestDistanceDelta = deltaResult.distanceDelta;
-                    bestMoveType = "INTER";
-                    bestMove = move;
-                }
-            }
-
-            // Apply best move if improving
-            if (bestDelta < 0) {
-                improved = true;
-
-                if (bestMoveType.equals("INTRA")) {
-                    applyIntraMove(cycle, bestMove, intraRouteMoveType);
-                    currentDistance += bestDelta;
-                    currentCost += bestDelta;
-                } else {
-                    int selectedNodeId = bestMove[0];
-                    int nonSelectedNodeId = bestMove[1];
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, selectedNodeId, nonSelectedNodeId);
-
-                    currentDistance += bestDistanceDelta;
-                    currentCost += bestDelta;
-                }
-            }
-        }
-
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, endTime - startTime);
+    // null restores this solver's own steepest search
+    public void setImprovementSolver(LocalSearchSolver improvementSolver) {
+        this.improvementSolver = (improvementSolver != null) ? improvementSolver : this;
     }
 
-
-
-
     public Solution runLNS_WithLS(Instance instance, IntraRouteMoveType intraType, int timeLimitMS) {
         int numMainLoop = 0;
-        long endTime = System.currentTimeMillis() + timeLimitMS;
+        long st = System.nanoTime();
+        // Polled inside the local search too, so a descent running into the time limit stops there
+        Deadline deadline = Deadline.afterMillis(timeLimitMS);
 
         // 1. Generate Initial Solution
-        long st = System.currentTimeMillis();
         Solution bestSolution = generateRandomSolution(instance);
 
         // 2. Initial LS
-        bestSolution = steepestLocalSearch(instance, bestSolution, intraType);
+        bestSolution = improvementSolver.steepestLocalSearch(instance, bestSolution, intraType, deadline);
 
         Solution currentSolution = bestSolution;
 
-        while (System.currentTimeMillis() < endTime) {
+        while (!deadline.expired()) {
             // 3.1 Destroy
             Solution perturbedCandidate = destroyHybrid(instance, currentSolution);
 
@@ -116,7 +52,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
             repairWeighted(instance, perturbedCandidate, 0.5, 0.5);
 
             // 3.3 Local Search (Applied to the repaired solution)
-            perturbedCandidate = steepestLocalSearch(instance, perturbedCandidate, intraType);
+            perturbedCandidate = improvementSolver.steepestLocalSearch(instance, perturbedCandidate, intraType, deadline);
 
             // 3.4 Acceptance (Strict Improvement)
             if (perturbedCandidate.totalCost < currentSolution.totalCost) {
@@ -131,8 +67,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         }
 
         System.out.println("LNS with LS completed " + numMainLoop + " main iterations.");
-        long et = System.currentTimeMillis();
-        bestSolution.totalRunningTime = (int) (et - st);
+        bestSolution.totalRunningTime = Deadline.millisSince(st);
 
         bestSolution.iterations = numMainLoop;
         return bestSolution;
@@ -142,18 +77,18 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
     public Solution runLNS_WithoutLS(Instance instance, int timeLimitMS) {
         int numMainLoop = 0;
 
-        long endTime = System.currentTimeMillis() + timeLimitMS;
+        long st = System.nanoTime();
+        Deadline deadline = Deadline.afterMillis(timeLimitMS);
 
         // 1. Generate Initial Solution
-        long st = System.currentTimeMillis();
         Solution bestSolution = generateRandomSolution(instance);
 
         // Initial LS is still required by prompt
-        bestSolution = steepestLocalSearch(instance, bestSolution, null);
+        bestSolution = improvementSolver.steepestLocalSearch(instance, bestSolution, null, deadline);
 
         Solution currentSolution = bestSolution;
 
-        while (System.currentTimeMillis() < endTime) {
+        while (!deadline.expired()) {
             // 3.1 Destroy
             Solution perturbedCandidate = destroyHybrid(instance, currentSolution);
 
@@ -175,8 +110,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         }
 
         System.out.println("LNS without LS completed " + numMainLoop + " main iterations.");
-        long et = System.currentTimeMillis();
-        bestSolution.totalRunningTime = (int) (et - st);
+        bestSolution.totalRunningTime = Deadline.millisSince(st);
 
         bestSolution.iterations = numMainLoop;
         return bestSolution;
@@ -205,7 +139,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         for (int i = 0; i < cycle.size(); i++) {
             int u = cycle.get(i);
             int v = cycle.get((i + 1) % cycle.size());
-            totalEdgeWeight += instance.distanceMatrix[u][v];
+            totalEdgeWeight += instance.distance(u, v);
             edgeCount++;
         }
         double averageEdgeWeight = totalEdgeWeight / edgeCount;
@@ -219,7 +153,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
             int u = cycle.get(idx);
             int v = cycle.get(nextIdx);
 
-            double dist = instance.distanceMatrix[u][v];
+            double dist = instance.distance(u, v);
 
             // Heuristic probability:
             // If edge is long (relative to average), higher chance to remove 'u' or 'v'.
@@ -237,38 +171,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         }
 
         // Apply removal
-        // Note: Removing from Lists while iterating is tricky, so we rebuild.
-        List<Integer> finalCycle = new ArrayList<>();
-        List<Node> finalSelectedNodes = new ArrayList<>();
-
-        for (int nodeId : cycle) {
-            if (!nodesToRemove.contains(nodeId)) {
-                finalCycle.add(nodeId);
-            }
-        }
-
-        for (Node n : partialSol.selectedNodes) {
-            if (!nodesToRemove.contains(n.id)) {
-                finalSelectedNodes.add(n);
-            }
-        }
-
-        partialSol.cycle = finalCycle;
-        partialSol.selectedNodes = finalSelectedNodes;
-
-        // Recalculate cost/dist for the partial solution
-        int totalDist = 0;
-        for (int i = 0; i < finalCycle.size(); i++) {
-            int u = finalCycle.get(i);
-            int v = finalCycle.get((i + 1) % finalCycle.size());
-            totalDist += instance.distanceMatrix[u][v];
-        }
-        int totalCostCalc = totalDist;
-        for (Node n : finalSelectedNodes) {
-            totalCostCalc += n.cost;
-        }
-        partialSol.totalDistance = totalDist;
-        partialSol.totalCost = totalCostCalc;
+        removeNodes(instance, partialSol, nodesToRemove);
 
         return partialSol;
     }
@@ -307,8 +210,8 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
 //                    int v = sol.cycle.get((i + 1) % sol.cycle.size());
 //
 //                    // Cost diff = dist(u, c) + dist(c, v) - dist(u, v) + nodeCost(c)
-//                    int addedDist = instance.distanceMatrix[u][candidateId] + instance.distanceMatrix[candidateId][v] - instance.distanceMatrix[u][v];
-//                    int addedCost = addedDist + instance.nodes.get(candidateId).cost;
+//                    int addedDist = instance.distance(u, candidateId) + instance.distance(candidateId, v) - instance.distance(u, v);
+//                    int addedCost = addedDist + instance.costs[candidateId];
 //
 //                    if (addedCost < bestCost) {
 //                        secondBestCost = bestCost;
@@ -349,7 +252,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
 //        for (int i = 0; i < sol.cycle.size(); i++) {
 //            int u = sol.cycle.get(i);
 //            int v = sol.cycle.get((i + 1) % sol.cycle.size());
-//            totalDist += instance.distanceMatrix[u][v];
+//            totalDist += instance.distance(u, v);
 //        }
 //        int totalCostCalc = totalDist;
 //        for (Node n : sol.selectedNodes) {
@@ -359,68 +262,50 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
 //        sol.totalCost = totalCostCalc;
 //    }
 
+    // Weighted 2-regret insertion, the insertion costs are kept up to date incrementally by InsertionCache
     public void repairWeighted(Instance instance, Solution sol, double weightRegret, double weightObjective) {
         int targetSize = instance.nodes.size() / 2;
 
-        Set<Integer> currentIds = new HashSet<>(sol.cycle);
-        List<Integer> unselected = new ArrayList<>();
-        for (int i = 0; i < instance.nodes.size(); i++) {
-            if (!currentIds.contains(i)) unselected.add(i);
-        }
+        // Candidates are in ascending id order, ties in the weighted score go to the smallest id
+        InsertionCache cache = new InsertionCache(instance, sol.cycle);
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "repairWeighted", sol.cycle,
+                sol.totalCost, sol.totalDistance);
 
-        while (sol.cycle.size() < targetSize && !unselected.isEmpty()) {
-            int bestNodeId = -1;
-            int bestInsertionIndex = -1;
+        while (sol.cycle.size() < targetSize && cache.numUnselected > 0) {
+            int bestK = -1;
             double maxWeightedScore = Double.NEGATIVE_INFINITY;
 
-            for (int candidateId : unselected) {
-                int bestCost = Integer.MAX_VALUE;
-                int secondBestCost = Integer.MAX_VALUE;
-                int currentBestIndex = -1;
-
-                for (int i = 0; i < sol.cycle.size(); i++) {
-                    int u = sol.cycle.get(i);
-                    int v = sol.cycle.get((i + 1) % sol.cycle.size());
-
-                    int addedDist = instance.distanceMatrix[u][candidateId]
-                            + instance.distanceMatrix[candidateId][v]
-                            - instance.distanceMatrix[u][v];
-                    int addedCost = addedDist + instance.nodes.get(candidateId).cost;
-
-                    if (addedCost < bestCost) {
-                        secondBestCost = bestCost;
-                        bestCost = addedCost;
-                        currentBestIndex = i;
-                    } else if (addedCost < secondBestCost) {
-                        secondBestCost = addedCost;
-                    }
-                }
-
-                int regret = secondBestCost - bestCost;
+            for (int k = 0; k < cache.numUnselected; k++) {
+                int candidateId = cache.unselected[k];
+                int regret = cache.secondCost[candidateId] - cache.bestCost[candidateId];
 
                 // Weighted score: balance between regret (diversification) and cost (quality)
-                double weightedScore = weightRegret * regret - weightObjective * bestCost;
+                double weightedScore = weightRegret * regret - weightObjective * cache.bestCost[candidateId];
 
                 if (weightedScore > maxWeightedScore) {
                     maxWeightedScore = weightedScore;
-                    bestNodeId = candidateId;
-                    bestInsertionIndex = currentBestIndex;
+                    bestK = k;
                 }
             }
 
-            if (bestNodeId != -1) {
-                sol.cycle.add(bestInsertionIndex + 1, bestNodeId);
-                sol.selectedNodes.add(instance.nodes.get(bestNodeId));
-                unselected.remove((Integer) bestNodeId);
-            } else {
+            if (bestK == -1) {
                 break;
             }
+
+            int bestNodeId = cache.unselected[bestK];
+            int nodeCost = instance.costs[bestNodeId];
+            // The first node of an empty cycle adds no edge
+            int insertionCost = (cache.bestFrom[bestNodeId] < 0) ? nodeCost : cache.bestCost[bestNodeId];
+            cache.insert(bestK);
+            sol.selectedNodes.add(instance.nodes.get(bestNodeId));
+            objective.apply(insertionCost, insertionCost - nodeCost);
         }
+        objective.checkpoint();
 
-        recalculateCosts(instance, sol);
+        sol.totalCost = objective.cost;
+        sol.totalDistance = objective.distance;
     }
 
-
     private Solution destroySubpath(Instance instance, Solution sol) {
         List<Node> newSelectedNodes = new ArrayList<>(sol.selectedNodes);
         List<Integer> newCycle = new ArrayList<>(sol.cycle);
@@ -443,26 +328,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         }
 
         // Rebuild cycle and selected nodes
-        List<Integer> finalCycle = new ArrayList<>();
-        List<Node> finalSelectedNodes = new ArrayList<>();
-
-        for (int nodeId : cycle) {
-            if (!nodesToRemove.contains(nodeId)) {
-                finalCycle.add(nodeId);
-            }
-        }
-
-        for (Node n : partialSol.selectedNodes) {
-            if (!nodesToRemove.contains(n.id)) {
-                finalSelectedNodes.add(n);
-            }
-        }
-
-        partialSol.cycle = finalCycle;
-        partialSol.selectedNodes = finalSelectedNodes;
-
-        // Recalculate costs
-        recalculateCosts(instance, partialSol);
+        removeNodes(instance, partialSol, nodesToRemove);
         return partialSol;
     }
 
@@ -495,25 +361,7 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
         }
 
         // Rebuild cycle and selected nodes
-        List<Integer> finalCycle = new ArrayList<>();
-        List<Node> finalSelectedNodes = new ArrayList<>();
-
-        for (int nodeId : cycle) {
-            if (!nodesToRemove.contains(nodeId)) {
-                finalCycle.add(nodeId);
-            }
-        }
-
-        for (Node n : partialSol.selectedNodes) {
-            if (!nodesToRemove.contains(n.id)) {
-                finalSelectedNodes.add(n);
-            }
-        }
-
-        partialSol.cycle = finalCycle;
-        partialSol.selectedNodes = finalSelectedNodes;
-
-        recalculateCosts(instance, partialSol);
+        removeNodes(instance, partialSol, nodesToRemove);
         return partialSol;
     }
 
@@ -532,22 +380,62 @@ public class LargeNeighborhoodSearchSolver extends LocalSearchCandidateMovesSolv
             return destroyMultipleSubpaths(instance, sol);
         }
     }
-    private void recalculateCosts(Instance instance, Solution sol) {
-        int totalDist = 0;
-        for (int i = 0; i < sol.cycle.size(); i++) {
-            int u = sol.cycle.get(i);
-            int v = sol.cycle.get((i + 1) % sol.cycle.size());
-            totalDist += instance.distanceMatrix[u][v];
-        }
-        int totalCostCalc = totalDist;
-        for (Node n : sol.selectedNodes) {
-            totalCostCalc += n.cost;
-        }
-        sol.totalDistance = totalDist;
-        sol.totalCost = totalCostCalc;
-    }
+    // Removes the nodes from the partial solution. The objective is updated from the removed nodes and the
+    // runs of edges they leave: each run between two kept nodes is replaced by a single edge.
+    private void removeNodes(Instance instance, Solution partialSol, Set<Integer> nodesToRemove) {
+        List<Integer> cycle = partialSol.cycle;
+        int n = cycle.size();
 
+        int start = 0;
+        while (start < n && nodesToRemove.contains(cycle.get(start))) start++;
 
+        int costDelta = 0;
+        int distanceDelta = 0;
+        if (start == n) {
+            // Everything is removed
+            costDelta = partialSol.totalDistance - partialSol.totalCost;
+            distanceDelta = -partialSol.totalDistance;
+        } else {
+            int lastKept = cycle.get(start);
+            int prev = lastKept;
+            int runDistance = 0;
+            for (int k = 1; k <= n; k++) {
+                int nodeId = cycle.get((start + k) % n);
+                runDistance += instance.distance(prev, nodeId);
+                if (nodesToRemove.contains(nodeId)) {
+                    costDelta -= instance.costs[nodeId];
+                } else {
+                    if (prev != lastKept) {
+                        distanceDelta += instance.distance(lastKept, nodeId) - runDistance;
+                    }
+                    lastKept = nodeId;
+                    runDistance = 0;
+                }
+                prev = nodeId;
+            }
+        }
 
+        List<Integer> finalCycle = new ArrayList<>();
+        List<Node> finalSelectedNodes = new ArrayList<>();
+        for (int nodeId : cycle) {
+            if (!nodesToRemove.contains(nodeId)) {
+                finalCycle.add(nodeId);
+            }
+        }
+        for (Node node : partialSol.selectedNodes) {
+            if (!nodesToRemove.contains(node.id)) {
+                finalSelectedNodes.add(node);
+            }
+        }
+        partialSol.cycle = finalCycle;
+        partialSol.selectedNodes = finalSelectedNodes;
+
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "destroy", finalCycle,
+                partialSol.totalCost, partialSol.totalDistance);
+        objective.apply(costDelta + distanceDelta, distanceDelta);
+        objective.checkpoint();
+        partialSol.totalCost = objective.cost;
+        partialSol.totalDistance = objective.distance;
+    }
 
 }
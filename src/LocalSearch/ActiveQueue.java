@@ -0,0 +1,33 @@
+package LocalSearch;
+
+// FIFO of active node ids for don't-look-bit searches, a node is queued at most once
+public class ActiveQueue {
+    private final int[] queue;
+    private final boolean[] queued;
+    private int head = 0;
+    private int count = 0;
+
+    public ActiveQueue(int numNodes) {
+        queue = new int[numNodes];
+        queued = new boolean[numNodes];
+    }
+
+    public void add(int nodeId) {
+        if (queued[nodeId]) return;
+        queued[nodeId] = true;
+        queue[(head + count) % queue.length] = nodeId;
+        count++;
+    }
+
+    public int poll() {
+        int nodeId = queue[head];
+        queued[nodeId] = false;
+        head = (head + 1) % queue.length;
+        count--;
+        return nodeId;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
@@ -0,0 +1,48 @@
+package LocalSearch;
+
+// Reusable holder for the best move of a steepest scan, so no objects are created per evaluated move
+public class BestMove implements MoveVisitor {
+    public String moveType;
+    public int first;   // INTRA: first position, INTER: selected node id
+    public int second;  // INTRA: second position, INTER: non-selected node id
+    public int delta;
+
+    public BestMove() {
+        reset();
+    }
+
+    public void reset() {
+        moveType = null;
+        first = -1;
+        second = -1;
+        delta = 0;
+    }
+
+    public boolean isImproving() {
+        return moveType != null && delta < 0;
+    }
+
+    public boolean isIntra() {
+        return "INTRA".equals(moveType);
+    }
+
+    @Override
+    public void visitIntra(int pos1, int pos2, int delta) {
+        if (delta < this.delta) {
+            this.moveType = "INTRA";
+            this.first = pos1;
+            this.second = pos2;
+            this.delta = delta;
+        }
+    }
+
+    @Override
+    public void visitInter(int selectedNodeId, int nonSelectedNodeId, int delta) {
+        if (delta < this.delta) {
+            this.moveType = "INTER";
+            this.first = selectedNodeId;
+            this.second = nonSelectedNodeId;
+            this.delta = delta;
+        }
+    }
+}
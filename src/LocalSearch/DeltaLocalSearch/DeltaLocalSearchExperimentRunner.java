@@ -27,25 +27,23 @@ public class DeltaLocalSearchExperimentRunner extends ExperimentRunner implement
 
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
-        List<Solution> solutions = new ArrayList<>();
-
-        for (int i = 0; i < numIterations; i++) {
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, DeltaLocalSearchSolver::new, (worker, i, random) -> {
             Solution solution = null;
 
             switch (methodName) {
                 case "DeltaLS_RandomStart_NodeExchange":
-                    solution = solver.deltaLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.deltaLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
                 case "DeltaLS_RandomStart_EdgeExchange":
-                    solution = solver.deltaLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.deltaLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
             }
 
             if (solution != null) {
                 System.out.println("Iteration " + (i+1) + ": Cost = " + solution.totalCost + ", Running Time = " + solution.totalRunningTime + "ms");
-                solutions.add(solution);
             }
-        }
+            return solution;
+        });
 
         return experimentStatsCalculations(instance, methodName, solutions);
     }
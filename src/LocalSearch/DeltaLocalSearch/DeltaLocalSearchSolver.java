@@ -3,170 +3,215 @@ package LocalSearch.DeltaLocalSearch;
 import LocalSearch.DeltaResult;
 import LocalSearch.IntraRouteMoveType;
 import LocalSearch.LocalSearchSolver;
+import LocalSearch.MoveVisitor;
+import LocalSearch.OrOptMove;
 import LocalSearch.StartingSolutionType;
+import Utilities.Deadline;
 import Utilities.Instance;
+import Utilities.ObjectiveTracker;
 import Utilities.Node;
 import Utilities.Solution;
+import Utilities.Tour;
 
 import java.util.*;
 
 public class DeltaLocalSearchSolver extends LocalSearchSolver {
 
+    // An applied Or-opt re-adds every move around its new edges, so most Or-opt records are stale by the time
+    // they are polled. The list is rebuilt from a full scan once it holds this many times the moves of the last one.
+    private static final int OR_OPT_REBUILD_FACTOR = 2;
+
     public DeltaLocalSearchSolver(){
     }
 
+    public DeltaLocalSearchSolver(Random random){
+        super(random);
+    }
+
     public Solution deltaLocalSearch(Instance instance, StartingSolutionType startingSolutionType,
                                      IntraRouteMoveType intraRouteMoveType){
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
 
-        List<Node> selectedNodes = new ArrayList<>(currentSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(currentSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
+        Tour tour = new Tour(currentSolution.cycle, instance.nodes.size());
 
-        int currentCost = currentSolution.totalCost;
-        int currentDistance = currentSolution.totalDistance;
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "deltaLocalSearch", tour,
+                currentSolution.totalCost, currentSolution.totalDistance);
 
-        List<StoredMove> lm = new ArrayList<>();
+        MoveHeap lm = new MoveHeap();
+        int[] changedEdges = new int[Math.max(4, OrOptMove.MAX_SEGMENT_LENGTH + 2)];
 
-        performFullScan(instance, cycle, selectedNodes, selectedIds, intraRouteMoveType, lm);
+        performFullScan(instance, tour, intraRouteMoveType, lm);
+        int scanSize = lm.size();
 
         while (!lm.isEmpty()) {
             boolean moveApplied = false;
 
-            Iterator<StoredMove> iterator = lm.iterator();
-            while (iterator.hasNext()) {
-                StoredMove storedMove = iterator.next();
+            // Browse the LM from the best move; moves that can't be applied yet are held and kept
+            while (!lm.isEmpty()) {
+                int move = lm.poll();
 
-                if (storedMove.moveType.equals("INTRA") && storedMove.intraType == IntraRouteMoveType.EDGE_EXCHANGE) {
+                if (lm.kind[move] == MoveHeap.INTRA_EDGE) {
                     // Check if stored edges still exist in the cycle
-                    EdgeCheckResult checkResult = checkEdgeExistence(cycle, storedMove);
+                    EdgeCheckResult checkResult = checkEdgeExistence(tour, lm, move);
 
                     // Case 1: At least one edge doesn't exist
                     if (checkResult == EdgeCheckResult.NOT_EXIST) {
-                        iterator.remove();
+                        lm.release(move);
                         continue;
                     }
 
                     // Case 2: Different relative direction - skip but keep in LM
                     if (checkResult == EdgeCheckResult.DIFFERENT_DIRECTION) {
-                        continue; // Don't apply, don't remove, continue browsing
+                        lm.hold(move); // Don't apply, don't remove, continue browsing
+                        continue;
                     }
 
                     // Case 3: Same relative direction (normal or both reversed) - apply move
-                    if (checkResult == EdgeCheckResult.SAME_DIRECTION) {
-                        applyIntraMove(cycle, storedMove.move, storedMove.intraType);
-                        currentDistance += storedMove.delta;
-                        currentCost += storedMove.delta;
-                        iterator.remove();
-                        moveApplied = true;
-
-                        // Evaluate new moves created by this application
-                        evaluateNewMoves(instance, cycle, selectedNodes, selectedIds,
-                                intraRouteMoveType, lm, storedMove.move);
-                        break;
-                    }
+                    int i = lm.a[move];
+                    int j = lm.b[move];
+                    applyIntraMove(tour, i, j, intraRouteMoveType);
+                    objective.applyIntra(lm.delta[move]);
+                    lm.release(move);
+                    moveApplied = true;
 
-                } else if (storedMove.moveType.equals("INTRA") && storedMove.intraType == IntraRouteMoveType.NODE_EXCHANGE) {
-                    // Node exchange - recalculate delta (positions may have changed)
-                    int pos1 = storedMove.move[0];
-                    int pos2 = storedMove.move[1];
+                    // Evaluate new moves created by this application, the new edges start at i and j
+                    changedEdges[0] = i;
+                    changedEdges[1] = j;
+                    evaluateNewMoves(instance, tour, intraRouteMoveType, lm, changedEdges, 2, -1);
+                    break;
 
-                    if (pos1 >= cycle.size() || pos2 >= cycle.size()) {
-                        iterator.remove();
-                        continue;
+                } else if (lm.kind[move] == MoveHeap.INTRA) {
+                    // Node exchange or Or-opt - recalculate delta (positions may have changed)
+                    int pos1 = lm.a[move];
+                    int pos2 = lm.b[move];
+                    lm.release(move);
+
+                    boolean valid;
+                    if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+                        // Stored by node ids, look up where the segment and the target are now
+                        int firstId = pos1;
+                        int targetId = OrOptMove.targetPos(pos2);
+                        if (!tour.contains(firstId) || !tour.contains(targetId)) continue;
+                        pos1 = tour.positionOf(firstId);
+                        pos2 = OrOptMove.encode(tour.positionOf(targetId), OrOptMove.length(pos2), OrOptMove.reversed(pos2));
+                        valid = isValidOrOpt(tour, pos1, pos2);
+                    } else {
+                        valid = pos1 < tour.size && pos2 < tour.size;
                     }
-
-                    int currentDelta = calculateIntraDelta(instance, cycle, storedMove.move, storedMove.intraType);
-                    if (currentDelta >= 0) {
-                        iterator.remove();
-                        continue;
+                    if (!valid) continue;
+
+                    int currentDelta = calculateIntraDelta(instance, tour, pos1, pos2, intraRouteMoveType);
+                    if (currentDelta >= 0) continue;
+
+                    int numChangedEdges;
+                    if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+                        // The segment is found again through its old predecessor and the target node
+                        int prevId = tour.get(tour.prevPos(pos1));
+                        int targetId = tour.get(OrOptMove.targetPos(pos2));
+                        int length = OrOptMove.length(pos2);
+
+                        applyIntraMove(tour, pos1, pos2, intraRouteMoveType);
+
+                        // New edges: (prev, next), and the target, the segment and the target's old successor
+                        int after = tour.positionOf(targetId);
+                        changedEdges[0] = tour.positionOf(prevId);
+                        numChangedEdges = 1;
+                        for (int k = 0; k <= length; k++) {
+                            changedEdges[numChangedEdges++] = (after + k) % tour.size;
+                        }
+                    } else {
+                        applyIntraMove(tour, pos1, pos2, intraRouteMoveType);
+
+                        changedEdges[0] = tour.prevPos(pos1);
+                        changedEdges[1] = pos1;
+                        changedEdges[2] = tour.prevPos(pos2);
+                        changedEdges[3] = pos2;
+                        numChangedEdges = 4;
                     }
-
-                    applyIntraMove(cycle, storedMove.move, storedMove.intraType);
-                    currentDistance += currentDelta;
-                    currentCost += currentDelta;
-                    iterator.remove();
+                    objective.applyIntra(currentDelta);
                     moveApplied = true;
 
-                    evaluateNewMoves(instance, cycle, selectedNodes, selectedIds,
-                            intraRouteMoveType, lm, storedMove.move);
+                    evaluateNewMoves(instance, tour, intraRouteMoveType, lm, changedEdges, numChangedEdges, -1);
                     break;
 
                 } else { // INTER move
-                    int selectedNodeId = storedMove.move[0];
-                    int nonSelectedNodeId = storedMove.move[1];
+                    int selectedNodeId = lm.a[move];
+                    int nonSelectedNodeId = lm.b[move];
+                    lm.release(move);
 
                     // Check if selected node still exists in cycle
-                    if (!selectedIds.contains(selectedNodeId)) {
-                        iterator.remove();
-                        continue;
-                    }
+                    if (!tour.contains(selectedNodeId) || tour.contains(nonSelectedNodeId)) continue;
 
                     // Recalculate delta
-                    DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes,
-                            selectedNodeId, nonSelectedNodeId);
+                    DeltaResult deltaResult = calculateInterDeltaDetailed(instance, tour, selectedNodeId, nonSelectedNodeId);
+                    if (deltaResult.totalDelta >= 0) continue;
 
-                    if (deltaResult.totalDelta >= 0) {
-                        iterator.remove();
-                        continue;
-                    }
-
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, selectedNodeId, nonSelectedNodeId);
-                    currentDistance += deltaResult.distanceDelta;
-                    currentCost += deltaResult.totalDelta;
-                    iterator.remove();
+                    applyInterMove(tour, selectedNodeId, nonSelectedNodeId);
+                    objective.apply(deltaResult.totalDelta, deltaResult.distanceDelta);
                     moveApplied = true;
 
-                    // Inter-route moves affect many edges, do full rescan
-                    lm.clear();
-                    performFullScan(instance, cycle, selectedNodes, selectedIds, intraRouteMoveType, lm);
+                    // Only the two edges around the replaced node changed
+                    int pos = tour.positionOf(nonSelectedNodeId);
+                    changedEdges[0] = tour.prevPos(pos);
+                    changedEdges[1] = pos;
+                    evaluateNewMoves(instance, tour, intraRouteMoveType, lm, changedEdges, 2, selectedNodeId);
                     break;
                 }
             }
 
+            lm.restoreHeld();
+
             if (!moveApplied) {
                 break;
             }
+
+            if (intraRouteMoveType == IntraRouteMoveType.OR_OPT && lm.size() > OR_OPT_REBUILD_FACTOR * scanSize) {
+                lm.clear();
+                performFullScan(instance, tour, intraRouteMoveType, lm);
+                scanSize = lm.size();
+            }
         }
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, endTime - startTime);
+        objective.checkpoint();
+
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
     }
 
-    private EdgeCheckResult checkEdgeExistence(List<Integer> cycle, StoredMove storedMove) {
-        // Find where the stored edges are in the current cycle
-        int edge1Pos = findEdgePosition(cycle, storedMove.edge1Start, storedMove.edge1End);
-        int edge2Pos = findEdgePosition(cycle, storedMove.edge2Start, storedMove.edge2End);
+    // Edges are looked up through the tour's position array, a stored edge (u, v) is in the cycle when v
+    // follows u (same direction) or u follows v (reversed)
+    private EdgeCheckResult checkEdgeExistence(Tour tour, MoveHeap lm, int move) {
+        int e1s = lm.edge1Start[move];
+        int e1e = lm.edge1End[move];
+        int e2s = lm.edge2Start[move];
+        int e2e = lm.edge2End[move];
 
-        // Also check inverted edges
-        int edge1InvPos = findEdgePosition(cycle, storedMove.edge1End, storedMove.edge1Start);
-        int edge2InvPos = findEdgePosition(cycle, storedMove.edge2End, storedMove.edge2Start);
+        // Inter moves may have removed one of the endpoints
+        if (!tour.contains(e1s) || !tour.contains(e1e) || !tour.contains(e2s) || !tour.contains(e2e)) {
+            return EdgeCheckResult.NOT_EXIST;
+        }
 
-        boolean edge1Exists = (edge1Pos != -1 || edge1InvPos != -1);
-        boolean edge2Exists = (edge2Pos != -1 || edge2InvPos != -1);
+        boolean edge1Normal = tour.succ(e1s) == e1e;
+        boolean edge1Reversed = tour.succ(e1e) == e1s;
+        boolean edge2Normal = tour.succ(e2s) == e2e;
+        boolean edge2Reversed = tour.succ(e2e) == e2s;
 
         // Case 1: At least one edge doesn't exist
-        if (!edge1Exists || !edge2Exists) {
+        if ((!edge1Normal && !edge1Reversed) || (!edge2Normal && !edge2Reversed)) {
             return EdgeCheckResult.NOT_EXIST;
         }
 
-        // Check relative direction
-        boolean normalDirection = (edge1Pos != -1 && edge2Pos != -1);
-        boolean bothReversed = (edge1InvPos != -1 && edge2InvPos != -1);
-
         // Case 3: Same relative direction (both normal OR both reversed)
-        if (normalDirection || bothReversed) {
+        if (edge1Normal && edge2Normal) {
             // Update move positions to current positions
-            if (normalDirection) {
-                storedMove.move[0] = edge1Pos;
-                storedMove.move[1] = edge2Pos;
-            } else {
-                storedMove.move[0] = edge1InvPos;
-                storedMove.move[1] = edge2InvPos;
-            }
+            lm.a[move] = tour.positionOf(e1s);
+            lm.b[move] = tour.positionOf(e2s);
+            return EdgeCheckResult.SAME_DIRECTION;
+        }
+        if (edge1Reversed && edge2Reversed) {
+            lm.a[move] = tour.positionOf(e1e);
+            lm.b[move] = tour.positionOf(e2e);
             return EdgeCheckResult.SAME_DIRECTION;
         }
 
@@ -174,126 +219,190 @@ public class DeltaLocalSearchSolver extends LocalSearchSolver {
         return EdgeCheckResult.DIFFERENT_DIRECTION;
     }
 
-    private int findEdgePosition(List<Integer> cycle, int start, int end) {
-        int n = cycle.size();
-        for (int i = 0; i < n; i++) {
-            int edgeStart = cycle.get(i);
-            int edgeEnd = cycle.get((i + 1) % n);
-            if (edgeStart == start && edgeEnd == end) {
-                return i;
-            }
+    // Adds the moves whose delta may have changed after a move replaced the edges starting at the given
+    // positions: intra moves using a new edge (edge exchange, Or-opt) or an endpoint of one (node exchange),
+    // inter moves replacing an endpoint, and inter moves bringing back the node removed by an inter move (if any).
+    // Stored moves that are no longer improving are dropped when they are polled.
+    private void evaluateNewMoves(Instance instance, Tour tour, IntraRouteMoveType intraRouteMoveType,
+                                  MoveHeap lm, int[] changedEdges, int numChangedEdges, int removedNodeId) {
+        int n = tour.size;
+
+        // Endpoints of the new edges, without repeats
+        int[] touched = new int[2 * numChangedEdges];
+        int numTouched = 0;
+        for (int e = 0; e < numChangedEdges; e++) {
+            numTouched = addUnique(touched, numTouched, changedEdges[e]);
+            numTouched = addUnique(touched, numTouched, tour.nextPos(changedEdges[e]));
         }
-        return -1;
-    }
 
-    private void evaluateNewMoves(Instance instance, List<Integer> cycle, List<Node> selectedNodes,
-                                  Set<Integer> selectedIds, IntraRouteMoveType intraRouteMoveType,
-                                  List<StoredMove> lm, int[] appliedMove) {
+        if (intraRouteMoveType == IntraRouteMoveType.EDGE_EXCHANGE) {
+            for (int e = 0; e < numChangedEdges; e++) {
+                int i = changedEdges[e];
+                for (int k = 0; k < n; k++) {
+                    if (k == i || k == tour.prevPos(i) || k == tour.nextPos(i)) continue; // Skip adjacent or same edges
+
+                    addEdgeExchangeMoves(instance, tour, lm, i, k);
+                }
+            }
+        } else if (intraRouteMoveType == IntraRouteMoveType.NODE_EXCHANGE) {
+            for (int t = 0; t < numTouched; t++) {
+                int pos = touched[t];
+                for (int k = 0; k < n; k++) {
+                    if (k == pos) continue;
 
-        if (intraRouteMoveType != IntraRouteMoveType.EDGE_EXCHANGE) {
-            return; // For node exchanges, new moves less predictable, skip
+                    int delta = calculateIntraDelta(instance, tour, pos, k, intraRouteMoveType);
+                    if (delta < 0) {
+                        lm.add(MoveHeap.INTRA, delta, pos, k);
+                    }
+                }
+            }
+        } else {
+            addOrOptMovesAround(instance, tour, lm, changedEdges, numChangedEdges);
         }
 
-        // involving the newly created edges
-        int i = appliedMove[0];
-        int j = appliedMove[1];
-        int n = cycle.size();
+        for (int t = 0; t < numTouched; t++) {
+            int selectedNodeId = tour.get(touched[t]);
+            for (Node node : instance.nodes) {
+                if (!tour.contains(node.id)) {
+                    addInterMove(instance, tour, lm, selectedNodeId, node.id);
+                }
+            }
+        }
 
-        // Evaluate moves involving these edges
-        for (int k = 0; k < n; k++) {
-            if (k == i || k == j || Math.abs(k - i) < 2 || Math.abs(k - j) < 2) {
-                continue; // Skip adjacent or same edges
+        if (removedNodeId >= 0) {
+            for (int pos = 0; pos < n; pos++) {
+                addInterMove(instance, tour, lm, tour.get(pos), removedNodeId);
             }
+        }
+    }
 
-            int delta1 = calculateIntraDelta(instance, cycle, new int[]{i, k}, intraRouteMoveType);
-            if (delta1 < 0) {
-                int edge1Start = cycle.get(i);
-                int edge1End = cycle.get((i + 1) % n);
-                int edge2Start = cycle.get(k);
-                int edge2End = cycle.get((k + 1) % n);
+    // Stores both reconnections of the edges starting at positions i and j: the 2-opt move valid now, and the
+    // one with the second edge inverted, which becomes valid once a later move flips the relative direction
+    // of the two edges (until then it is held as DIFFERENT_DIRECTION)
+    private void addEdgeExchangeMoves(Instance instance, Tour tour, MoveHeap lm, int i, int j) {
+        int a = tour.get(i);
+        int b = tour.get(tour.nextPos(i));
+        int c = tour.get(j);
+        int e = tour.get(tour.nextPos(j));
+
+        int removed = instance.distance(a, b) + instance.distance(c, e);
+        int delta = instance.distance(a, c) + instance.distance(b, e) - removed;
+        if (delta < 0) {
+            lm.add(MoveHeap.INTRA_EDGE, delta, i, j, a, b, c, e);
+        }
 
-                StoredMove newMove = new StoredMove("INTRA", new int[]{i, k}, delta1, intraRouteMoveType,
-                        edge1Start, edge1End, edge2Start, edge2End);
-                insertSorted(lm, newMove);
+        int invertedDelta = instance.distance(a, e) + instance.distance(b, c) - removed;
+        if (invertedDelta < 0) {
+            lm.add(MoveHeap.INTRA_EDGE, invertedDelta, i, j, a, b, e, c);
+        }
+    }
+
+    // Or-opt moves whose delta reads one of the edges starting at the given positions: segments of which it is
+    // the incoming, an inner or the outgoing edge, and segments moved into it. Every move is added once.
+    private void addOrOptMovesAround(Instance instance, Tour tour, MoveHeap lm, int[] changedEdges, int numChangedEdges) {
+        int n = tour.size;
+        int[] starts = new int[numChangedEdges * (OrOptMove.MAX_SEGMENT_LENGTH + 1)];
+
+        for (int length = 1; length <= OrOptMove.MAX_SEGMENT_LENGTH; length++) {
+            int numStarts = 0;
+            for (int e = 0; e < numChangedEdges; e++) {
+                for (int s = 0; s <= length; s++) {
+                    numStarts = addUnique(starts, numStarts, Math.floorMod(changedEdges[e] + 1 - s, n));
+                }
             }
 
+            for (int t = 0; t < numStarts; t++) {
+                for (int after = 0; after < n; after++) {
+                    addOrOptMove(instance, tour, lm, starts[t], OrOptMove.encode(after, length, false));
+                    addOrOptMove(instance, tour, lm, starts[t], OrOptMove.encode(after, length, true));
+                }
+            }
 
-            int delta2 = calculateIntraDelta(instance, cycle, new int[]{j, k}, intraRouteMoveType);
-            if (delta2 < 0) {
-                int edge1Start = cycle.get(j);
-                int edge1End = cycle.get((j + 1) % n);
-                int edge2Start = cycle.get(k);
-                int edge2End = cycle.get((k + 1) % n);
+            for (int e = 0; e < numChangedEdges; e++) {
+                int after = changedEdges[e];
+                for (int from = 0; from < n; from++) {
+                    if (contains(starts, numStarts, from)) continue; // already paired with every target
 
-                StoredMove newMove = new StoredMove("INTRA", new int[]{j, k}, delta2, intraRouteMoveType,
-                        edge1Start, edge1End, edge2Start, edge2End);
-                insertSorted(lm, newMove);
+                    addOrOptMove(instance, tour, lm, from, OrOptMove.encode(after, length, false));
+                    addOrOptMove(instance, tour, lm, from, OrOptMove.encode(after, length, true));
+                }
             }
         }
     }
 
-    private void insertSorted(List<StoredMove> lm, StoredMove move) {
-        int index = Collections.binarySearch(lm, move, Comparator.comparingInt(m -> m.delta));
-        if (index < 0) {
-            index = -index - 1;
+    private void addOrOptMove(Instance instance, Tour tour, MoveHeap lm, int from, int code) {
+        if (!isValidOrOpt(tour, from, code)) return;
+
+        int delta = calculateOrOptDelta(instance, tour, from, code);
+        if (delta < 0) {
+            storeOrOptMove(tour, lm, delta, from, code);
         }
-        lm.add(index, move);
     }
 
-    private void performFullScan(Instance instance, List<Integer> cycle, List<Node> selectedNodes,
-                                 Set<Integer> selectedIds, IntraRouteMoveType intraRouteMoveType,
-                                 List<StoredMove> lm) {
+    // Or-opt moves are kept by the ids of the first segment node and the target node, applied Or-opt moves
+    // shift the positions of the nodes between a segment and its target
+    private void storeOrOptMove(Tour tour, MoveHeap lm, int delta, int from, int code) {
+        int targetId = tour.get(OrOptMove.targetPos(code));
+        lm.add(MoveHeap.INTRA, delta, tour.get(from), OrOptMove.encode(targetId, OrOptMove.length(code), OrOptMove.reversed(code)));
+    }
 
-        if (intraRouteMoveType == IntraRouteMoveType.EDGE_EXCHANGE) {
-            for (int i = 0; i < cycle.size(); i++) {
-                for (int j = i + 2; j < cycle.size(); j++) {
-                    if (i == 0 && j == cycle.size() - 1) continue;
+    private void addInterMove(Instance instance, Tour tour, MoveHeap lm, int selectedNodeId, int nonSelectedNodeId) {
+        int delta = calculateInterDelta(instance, tour, selectedNodeId, nonSelectedNodeId);
+        if (delta < 0) {
+            lm.add(MoveHeap.INTER, delta, selectedNodeId, nonSelectedNodeId);
+        }
+    }
 
-                    int delta = calculateIntraDelta(instance, cycle, new int[]{i, j}, intraRouteMoveType);
-                    if (delta < 0) {
-                        int n = cycle.size();
-                        int edge1Start = cycle.get(i);
-                        int edge1End = cycle.get((i + 1) % n);
-                        int edge2Start = cycle.get(j);
-                        int edge2End = cycle.get((j + 1) % n);
+    private int addUnique(int[] values, int count, int value) {
+        if (contains(values, count, value)) return count;
+        values[count] = value;
+        return count + 1;
+    }
 
-                        // Store only once (not inverted version)
-                        lm.add(new StoredMove("INTRA", new int[]{i, j}, delta, intraRouteMoveType,
-                                edge1Start, edge1End, edge2Start, edge2End));
+    private boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
 
+    private void performFullScan(Instance instance, Tour tour, IntraRouteMoveType intraRouteMoveType,
+                                 MoveHeap lm) {
 
-                    }
+        if (intraRouteMoveType == IntraRouteMoveType.EDGE_EXCHANGE) {
+            for (int i = 0; i < tour.size; i++) {
+                for (int j = i + 2; j < tour.size; j++) {
+                    if (i == 0 && j == tour.size - 1) continue;
+
+                    addEdgeExchangeMoves(instance, tour, lm, i, j);
                 }
             }
         } else {
-            for (int i = 0; i < cycle.size(); i++) {
-                for (int j = i + 1; j < cycle.size(); j++) {
-                    int delta = calculateIntraDelta(instance, cycle, new int[]{i, j}, intraRouteMoveType);
-                    if (delta < 0) {
-                        lm.add(new StoredMove("INTRA", new int[]{i, j}, delta, intraRouteMoveType,
-                                0, 0, 0, 0));
+            scanIntraMoves(instance, tour, intraRouteMoveType, new MoveVisitor() {
+                @Override
+                public void visitIntra(int pos1, int pos2, int delta) {
+                    if (delta >= 0) return;
+
+                    if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+                        storeOrOptMove(tour, lm, delta, pos1, pos2);
+                    } else {
+                        lm.add(MoveHeap.INTRA, delta, pos1, pos2);
                     }
                 }
-            }
+
+                @Override
+                public void visitInter(int selectedNodeId, int nonSelectedNodeId, int delta) {
+                }
+            });
         }
 
-        for (int selectedNodeId : selectedIds) {
+        for (int pos = 0; pos < tour.size; pos++) {
+            int selectedNodeId = tour.get(pos);
             for (Node node : instance.nodes) {
-                if (!selectedIds.contains(node.id)) {
-                    DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes,
-                            selectedNodeId, node.id);
-
-                    if (deltaResult.totalDelta < 0) {
-                        lm.add(new StoredMove("INTER",
-                                new int[]{selectedNodeId, node.id},
-                                deltaResult.totalDelta,
-                                deltaResult.distanceDelta,
-                                0, 0, 0, 0));
-                    }
+                if (!tour.contains(node.id)) {
+                    addInterMove(instance, tour, lm, selectedNodeId, node.id);
                 }
             }
         }
-
-        lm.sort(Comparator.comparingInt(m -> m.delta));
     }
 }
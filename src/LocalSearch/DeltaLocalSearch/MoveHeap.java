@@ -0,0 +1,154 @@
+package LocalSearch.DeltaLocalSearch;
+
+import java.util.Arrays;
+
+// List of improving moves (LM) of the delta local search: a binary min-heap on delta over move records kept
+// in parallel int arrays. Polled records stay allocated until released, so a move that can't be applied
+// yet can be held and pushed back once the browse of the list is over.
+public class MoveHeap {
+
+    public static final int INTRA_EDGE = 0; // edge exchange, checked against its stored edges
+    public static final int INTRA = 1;      // node exchange: a, b = positions; Or-opt: a = first segment node id,
+                                            // b = OrOptMove code with the target node id in place of its position
+    public static final int INTER = 2;      // a = selected node id, b = non-selected node id
+
+    // Record fields, indexed by record id
+    public int[] kind;
+    public int[] delta;
+    public int[] a;
+    public int[] b;
+    public int[] edge1Start;
+    public int[] edge1End;
+    public int[] edge2Start;
+    public int[] edge2End;
+
+    private long[] heap;     // (delta, record id) keys, compared without going through the record arrays
+    private int heapSize;
+    private int[] free;      // record ids that can be reused
+    private int numFree;
+    private int numRecords;  // record ids handed out so far
+    private int[] held;
+    private int numHeld;
+
+    public MoveHeap() {
+        this(256);
+    }
+
+    public MoveHeap(int capacity) {
+        kind = new int[capacity];
+        delta = new int[capacity];
+        a = new int[capacity];
+        b = new int[capacity];
+        edge1Start = new int[capacity];
+        edge1End = new int[capacity];
+        edge2Start = new int[capacity];
+        edge2End = new int[capacity];
+        heap = new long[capacity];
+        free = new int[capacity];
+        held = new int[capacity];
+    }
+
+    public void add(int moveKind, int moveDelta, int moveA, int moveB) {
+        add(moveKind, moveDelta, moveA, moveB, 0, 0, 0, 0);
+    }
+
+    public void add(int moveKind, int moveDelta, int moveA, int moveB,
+                    int e1Start, int e1End, int e2Start, int e2End) {
+        int record;
+        if (numFree > 0) {
+            record = free[--numFree];
+        } else {
+            if (numRecords == kind.length) grow();
+            record = numRecords++;
+        }
+
+        kind[record] = moveKind;
+        delta[record] = moveDelta;
+        a[record] = moveA;
+        b[record] = moveB;
+        edge1Start[record] = e1Start;
+        edge1End[record] = e1End;
+        edge2Start[record] = e2Start;
+        edge2End[record] = e2End;
+        push(record);
+    }
+
+    public int size() {
+        return heapSize + numHeld;
+    }
+
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    // Removes the record with the smallest delta from the heap, the caller releases or holds it
+    public int poll() {
+        int top = (int) heap[0];
+        long last = heap[--heapSize];
+        if (heapSize > 0) siftDown(last);
+        return top;
+    }
+
+    public void release(int record) {
+        free[numFree++] = record;
+    }
+
+    // Keeps a polled record aside until restoreHeld
+    public void hold(int record) {
+        held[numHeld++] = record;
+    }
+
+    public void restoreHeld() {
+        for (int i = 0; i < numHeld; i++) push(held[i]);
+        numHeld = 0;
+    }
+
+    public void clear() {
+        heapSize = 0;
+        numFree = 0;
+        numRecords = 0;
+        numHeld = 0;
+    }
+
+    private void push(int record) {
+        int pos = heapSize++;
+        long key = ((long) delta[record] << 32) | record;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (heap[parent] <= key) break;
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = key;
+    }
+
+    // Places key at the root and moves it down to its place
+    private void siftDown(long key) {
+        int pos = 0;
+        int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < heapSize && heap[right] < heap[child]) child = right;
+            if (key <= heap[child]) break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = key;
+    }
+
+    private void grow() {
+        int capacity = kind.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        delta = Arrays.copyOf(delta, capacity);
+        a = Arrays.copyOf(a, capacity);
+        b = Arrays.copyOf(b, capacity);
+        edge1Start = Arrays.copyOf(edge1Start, capacity);
+        edge1End = Arrays.copyOf(edge1End, capacity);
+        edge2Start = Arrays.copyOf(edge2Start, capacity);
+        edge2End = Arrays.copyOf(edge2End, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        free = Arrays.copyOf(free, capacity);
+        held = Arrays.copyOf(held, capacity);
+    }
+}
@@ -1,4 +1,5 @@
 package LocalSearch;public enum IntraRouteMoveType {
     NODE_EXCHANGE,
-    EDGE_EXCHANGE
+    EDGE_EXCHANGE,
+    OR_OPT // move a segment of 1-3 nodes elsewhere in the cycle, optionally reversed (see OrOptMove)
 }
@@ -1,5 +1,6 @@
 package LocalSearch.IteratedLocalSearch;
 
+import Utilities.CsvSink;
 import Utilities.ExperimentResult;
 import Utilities.ExperimentRunner;
 import Utilities.Instance;
@@ -96,19 +97,17 @@ public class IteratedLocalSearchExperimentRunner extends ExperimentRunner {
 
         // Save all_solutions.csv for this run
         String allSolutionsFile = runDir + "/" + instance.name + "_Iterated_all_solutions.csv";
-        try (FileWriter writer = new FileWriter(allSolutionsFile)) {
-            writer.append("SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle\n");
+        try (CsvSink sink = new CsvSink(allSolutionsFile, "SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle")) {
             for (int i = 0; i < result.solutions.size(); i++) {
                 Solution sol = result.solutions.get(i);
-                String cycleStr = sol.cycle.toString().replace("[", "").replace("]", "").replace(", ", "-");
-                writer.append(String.format("%d,%d,%d,%d,%d,%d,\"%s\"\n",
-                        i + 1,
-                        sol.totalCost,
-                        sol.selectedNodes.size(),
-                        sol.totalDistance,
-                        sol.totalCost,  // ObjectiveFunction is same as TotalCost
-                        sol.totalRunningTime,
-                        cycleStr));
+                StringBuilder line = new StringBuilder(64 + 4 * sol.cycle.size());
+                line.append(i + 1).append(',')
+                        .append(sol.totalCost).append(',')
+                        .append(sol.selectedNodes.size()).append(',')
+                        .append(sol.totalDistance).append(',')
+                        .append(sol.totalCost).append(',') // ObjectiveFunction is same as TotalCost
+                        .append(sol.totalRunningTime).append(',');
+                sink.writeLine(CsvSink.appendCycle(line, sol.cycle).toString());
             }
         }
     }
@@ -1,8 +1,8 @@
 package LocalSearch.IteratedLocalSearch;
 
-import LocalSearch.DeltaResult;
 import LocalSearch.IntraRouteMoveType;
 import LocalSearch.LocalSearchSolver;
+import Utilities.Deadline;
 import Utilities.Instance;
 import Utilities.Node;
 import Utilities.Solution;
@@ -31,12 +31,12 @@ public class IteratedLocalSearchSolver extends LocalSearchSolver {
     }
 
     public List<Solution> iteratedLocalSearch(Instance instance, long stoppingTime) {
-        long totalStartTime = System.currentTimeMillis();
+        Deadline deadline = Deadline.afterMillis(stoppingTime);
         List<Solution> foundSolutions = new ArrayList<>();
 
         // Initial solution and local search
         Solution initialSolution = generateRandomSolution(instance);
-        Solution s_best = steepestLocalSearchFromSolution(instance, initialSolution);
+        Solution s_best = steepestLocalSearchFromSolution(instance, initialSolution, deadline);
         foundSolutions.add(s_best);
         Solution s_current = s_best;
 
@@ -45,14 +45,14 @@ public class IteratedLocalSearchSolver extends LocalSearchSolver {
         int runCount = 1;
         int perturbationStrength = initialPerturbationStrength;
 
-        while (System.currentTimeMillis() - totalStartTime < stoppingTime) {
+        while (!deadline.expired()) {
             runCount++;
 
             // 1. Perturb the current solution with adaptive strength
             Solution s_perturbed = perturbHybrid(s_current, instance, perturbationStrength);
 
             // 2. Apply local search to the perturbed solution
-            Solution s_new = steepestLocalSearchFromSolution(instance, s_perturbed);
+            Solution s_new = steepestLocalSearchFromSolution(instance, s_perturbed, deadline);
             foundSolutions.add(s_new);
 
             boolean isNewGlobalBest = s_new.totalCost < s_best.totalCost;
@@ -79,69 +79,11 @@ public class IteratedLocalSearchSolver extends LocalSearchSolver {
         return foundSolutions;
     }
 
-    private Solution steepestLocalSearchFromSolution(Instance instance, Solution startingSolution) {
-        long startTime = System.currentTimeMillis();
-
-
-        List<Node> selectedNodes = new ArrayList<>(startingSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(startingSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
-
-        int currentCost = startingSolution.totalCost;
-        int currentDistance = startingSolution.totalDistance;
-
-        boolean improved = true;
-        while (improved) {
-            improved = false;
-            int bestDelta = 0;
-            String bestMoveType = null;
-            int[] bestMove = null;
-            int bestDistanceDelta = 0;
-
-            List<int[]> intraMoves = generateIntraMoves(cycle.size(), IntraRouteMoveType.EDGE_EXCHANGE);
-            for (int[] move : intraMoves) {
-                int delta = calculateIntraDelta(instance, cycle, move, IntraRouteMoveType.EDGE_EXCHANGE);
-                if (delta < bestDelta) {
-                    bestDelta = delta;
-                    bestMoveType = "INTRA";
-                    bestMove = move;
-                }
-            }
-
-            List<int[]> interMoves = generateInterMoves(instance, selectedIds);
-            for (int[] move : interMoves) {
-                DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes, move[0], move[1]);
-                if (deltaResult.totalDelta < bestDelta) {
-                    bestDelta = deltaResult.totalDelta;
-                    bestDistanceDelta = deltaResult.distanceDelta;
-                    bestMoveType = "INTER";
-                    bestMove = move;
-                }
-            }
-
-            if (bestDelta < 0 && bestMove != null) {
-                improved = true;
-                if ("INTRA".equals(bestMoveType)) {
-                    applyIntraMove(cycle, bestMove, IntraRouteMoveType.EDGE_EXCHANGE);
-                    currentDistance += bestDelta;
-                    currentCost += bestDelta;
-                } else { // INTER
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, bestMove[0], bestMove[1]);
-                    currentDistance += bestDistanceDelta;
-                    currentCost += bestDelta;
-                }
-            }
-        }
-
-        long endTime = System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, (int) (endTime - startTime));
+    private Solution steepestLocalSearchFromSolution(Instance instance, Solution startingSolution, Deadline deadline) {
+        return steepestLocalSearch(instance, startingSolution, IntraRouteMoveType.EDGE_EXCHANGE, deadline);
     }
 
     private Solution perturbHybrid(Solution solution, Instance instance, int strength) {
-        Map<Integer, Node> idToNode = new HashMap<>();
-        for (Node n : instance.nodes) idToNode.put(n.id, n);
-
         List<Integer> newCycle = new ArrayList<>(solution.cycle);
         List<Node> selectedNodes = new ArrayList<>(solution.selectedNodes);
         Set<Integer> selectedIds = new HashSet<>();
@@ -166,9 +108,9 @@ public class IteratedLocalSearchSolver extends LocalSearchSolver {
             int worstCost = Integer.MIN_VALUE;
             for (int k = 0; k < removalCandidateSamples && !newCycle.isEmpty(); k++) {
                 int idx = random.nextInt(newCycle.size());
-                Node candidate = idToNode.get(newCycle.get(idx));
-                if (candidate != null && candidate.cost > worstCost) {
-                    worstCost = candidate.cost;
+                int candidateCost = instance.costs[newCycle.get(idx)];
+                if (candidateCost > worstCost) {
+                    worstCost = candidateCost;
                     bestRemoveIndexInCycle = idx;
                 }
             }
@@ -0,0 +1,266 @@
+package LocalSearch.LinKernighan;
+
+import LocalSearch.ActiveQueue;
+import LocalSearch.BestMove;
+import LocalSearch.IntraRouteMoveType;
+import LocalSearch.LocalSearchCandidateMoves.LocalSearchCandidateMovesSolver;
+import LocalSearch.StartingSolutionType;
+import Utilities.CandidateLists;
+import Utilities.Deadline;
+import Utilities.Instance;
+import Utilities.ObjectiveTracker;
+import Utilities.Solution;
+import Utilities.Tour;
+
+import java.util.Random;
+
+// Variable-depth search in the style of Lin-Kernighan (Or-2opt chains). From an active node t1 a chain of
+// 2-opt flips is grown along candidate edges while the partial gain stays positive, and the tour is rolled
+// back to the best closed tour seen on the chain. A node without an improving chain tries the candidate
+// Or-opt and exchange moves instead. Active nodes are kept in a don't-look-bit queue.
+// The solver keeps no state between calls, so one instance can be shared by several threads.
+public class LinKernighanSolver extends LocalSearchCandidateMovesSolver {
+
+    private static final int NUM_CANDIDATES = 20;
+    private static final int MAX_DEPTH = 10;
+
+    public LinKernighanSolver() {
+
+    }
+
+    public LinKernighanSolver(Random random) {
+        super(random);
+    }
+
+    // Drop-in replacements for the steepest search, the move type is not used
+    @Override
+    public Solution steepestLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType) {
+        long startTime = System.nanoTime();
+
+        Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
+        Solution result = variableDepthSearch(instance, currentSolution);
+
+        result.totalRunningTime = Deadline.millisSince(startTime);
+        return result;
+    }
+
+    @Override
+    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType,
+                                        Tour tour, Deadline deadline) {
+        return variableDepthSearch(instance, startingSolution, tour, deadline);
+    }
+
+    public Solution variableDepthSearch(Instance instance, Solution startingSolution) {
+        return variableDepthSearch(instance, startingSolution, Deadline.NONE);
+    }
+
+    // Stops when the deadline passes and returns the tour reached so far
+    public Solution variableDepthSearch(Instance instance, Solution startingSolution, Deadline deadline) {
+        return variableDepthSearch(instance, startingSolution, new Tour(instance.size), deadline);
+    }
+
+    // Works inside the given scratch tour so repeated calls don't reallocate it
+    public Solution variableDepthSearch(Instance instance, Solution startingSolution, Tour tour, Deadline deadline) {
+        long startTime = System.nanoTime();
+
+        CandidateLists candidates = instance.candidateLists(NUM_CANDIDATES);
+        tour.load(startingSolution.cycle);
+
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "variableDepthSearch", tour,
+                startingSolution.totalCost, startingSolution.totalDistance);
+        BestMove bestMove = new BestMove();
+        Chain chain = new Chain();
+
+        ActiveQueue active = new ActiveQueue(instance.nodes.size());
+        for (int idx = 0; idx < tour.size; idx++) {
+            active.add(tour.get(idx));
+        }
+
+        int[] touched = new int[MAX_TOUCHED_NODES];
+        while (!active.isEmpty() && !deadline.expired()) {
+            int t1 = active.poll();
+            if (!tour.contains(t1)) continue; // exchanged out since it was activated
+
+            int gain = improveChain(instance, tour, candidates, t1, true, chain);
+            if (gain <= 0) {
+                gain = improveChain(instance, tour, candidates, t1, false, chain);
+            }
+            if (gain > 0) {
+                objective.applyIntra(-gain);
+
+                active.add(t1);
+                for (int t = 0; t < chain.numTouched; t++) {
+                    active.add(chain.touched[t]);
+                }
+                continue;
+            }
+
+            // No improving chain, try Or-opt and exchange moves around t1
+            bestMove.reset();
+            scanCandidateMoves(instance, tour, tour.positionOf(t1), candidates, IntraRouteMoveType.OR_OPT, bestMove);
+
+            if (bestMove.isImproving()) {
+                int numTouched = touchedNodes(tour, bestMove, IntraRouteMoveType.OR_OPT, touched);
+                objective.apply(bestMove.delta, applyBestMove(instance, tour, bestMove, IntraRouteMoveType.OR_OPT));
+
+                active.add(t1);
+                for (int t = 0; t < numTouched; t++) {
+                    if (tour.contains(touched[t])) active.add(touched[t]);
+                }
+            }
+        }
+
+        objective.checkpoint();
+
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
+    }
+
+    // Grows a chain from t1, starting by removing the edge to its successor (forward) or predecessor.
+    // Every step removes (t1, t2) and (t3, t4) and adds (t2, t3) and the closing edge (t1, t4), which the
+    // next step removes again. Returns the gain of the best closed tour and leaves the tour there, or
+    // restores the tour and returns 0 when no closed tour was better.
+    private int improveChain(Instance instance, Tour tour, CandidateLists candidates, int t1, boolean forward, Chain chain) {
+        int[] neighbors = candidates.neighbors;
+        int k = candidates.k;
+
+        boolean fwd = forward;
+        int t2 = next(tour, t1, fwd);
+        chain.reset(t1, t2);
+
+        int openGain = instance.distance(t1, t2);
+        int bestGain = 0;
+        int bestDepth = 0;
+
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            int t2Next = next(tour, t2, fwd);
+            int bestT3 = -1;
+            int bestT4 = -1;
+            int bestValue = Integer.MIN_VALUE;
+
+            for (int c = t2 * k; c < t2 * k + k; c++) {
+                int t3 = neighbors[c];
+                if (!tour.contains(t3) || t3 == t1 || t3 == t2Next) continue;
+
+                // Gain criterion: the partial sum must stay positive
+                int g = openGain - instance.distance(t2, t3);
+                if (g <= 0) continue;
+
+                int t4 = next(tour, t3, !fwd);
+                if (chain.isAdded(t3, t4) || chain.isRemoved(t2, t3)) continue;
+
+                int value = g + instance.distance(t3, t4);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestT3 = t3;
+                    bestT4 = t4;
+                }
+            }
+
+            if (bestT3 < 0) break;
+
+            fwd = flip(tour, t1, t2, bestT3, bestT4, fwd, chain);
+            chain.addStep(t2, bestT3, bestT4);
+
+            openGain = bestValue;
+            int closedGain = openGain - instance.distance(t1, bestT4);
+            if (closedGain > bestGain) {
+                bestGain = closedGain;
+                bestDepth = depth + 1;
+            }
+            t2 = bestT4;
+        }
+
+        chain.rollback(tour, bestDepth);
+        return bestGain;
+    }
+
+    // Reverses t2..t4 (in orientation fwd) so t1 is followed by t4 and t2 by t3. When the other side t3..t1
+    // is shorter it is reversed instead, which gives the same cycle in the opposite orientation.
+    // Returns the orientation in which t4 follows t1.
+    private boolean flip(Tour tour, int t1, int t2, int t3, int t4, boolean fwd, Chain chain) {
+        int from = fwd ? tour.positionOf(t2) : tour.positionOf(t4);
+        int to = fwd ? tour.positionOf(t4) : tour.positionOf(t2);
+        int length = to - from;
+        if (length < 0) length += tour.size;
+        length++;
+
+        if (length * 2 > tour.size) {
+            from = fwd ? tour.positionOf(t3) : tour.positionOf(t1);
+            to = fwd ? tour.positionOf(t1) : tour.positionOf(t3);
+            fwd = !fwd;
+        }
+
+        tour.reverse(from, to);
+        chain.logFlip(from, to);
+        return fwd;
+    }
+
+    private int next(Tour tour, int nodeId, boolean fwd) {
+        return fwd ? tour.succ(nodeId) : tour.pred(nodeId);
+    }
+
+    // Flips and edges of the chain being grown, kept so the tour can be rolled back and the same edge
+    // isn't added and removed within one chain
+    private static class Chain {
+        final int[] flipFrom = new int[MAX_DEPTH];
+        final int[] flipTo = new int[MAX_DEPTH];
+        final int[] addedA = new int[MAX_DEPTH];
+        final int[] addedB = new int[MAX_DEPTH];
+        final int[] removedA = new int[MAX_DEPTH + 1];
+        final int[] removedB = new int[MAX_DEPTH + 1];
+        final int[] touched = new int[2 * MAX_DEPTH + 2];
+        int numFlips;
+        int numAdded;
+        int numRemoved;
+        int numTouched;
+
+        void reset(int t1, int t2) {
+            numFlips = 0;
+            numAdded = 0;
+            numRemoved = 0;
+            numTouched = 0;
+            removedA[numRemoved] = t1;
+            removedB[numRemoved++] = t2;
+            touched[numTouched++] = t1;
+            touched[numTouched++] = t2;
+        }
+
+        void logFlip(int from, int to) {
+            flipFrom[numFlips] = from;
+            flipTo[numFlips++] = to;
+        }
+
+        void addStep(int t2, int t3, int t4) {
+            addedA[numAdded] = t2;
+            addedB[numAdded++] = t3;
+            removedA[numRemoved] = t3;
+            removedB[numRemoved++] = t4;
+            touched[numTouched++] = t3;
+            touched[numTouched++] = t4;
+        }
+
+        boolean isAdded(int a, int b) {
+            return contains(addedA, addedB, numAdded, a, b);
+        }
+
+        boolean isRemoved(int a, int b) {
+            return contains(removedA, removedB, numRemoved, a, b);
+        }
+
+        private boolean contains(int[] as, int[] bs, int count, int a, int b) {
+            for (int i = 0; i < count; i++) {
+                if ((as[i] == a && bs[i] == b) || (as[i] == b && bs[i] == a)) return true;
+            }
+            return false;
+        }
+
+        // Undoes the flips after the first `depth` ones; touched keeps the nodes of the steps that stay
+        void rollback(Tour tour, int depth) {
+            for (int i = numFlips - 1; i >= depth; i--) {
+                tour.reverse(flipFrom[i], flipTo[i]);
+            }
+            numFlips = depth;
+            numTouched = (depth == 0) ? 0 : 2 + 2 * depth;
+        }
+    }
+}
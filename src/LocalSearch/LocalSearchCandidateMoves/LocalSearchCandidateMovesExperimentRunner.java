@@ -32,28 +32,23 @@ public class LocalSearchCandidateMovesExperimentRunner extends ExperimentRunner
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
 
-        List<Solution> solutions = new ArrayList<>();
-
-
-
-        for (int i=0;i<numIterations;i++){
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, LocalSearchCandidateMovesSolver::new, (worker, i, random) -> {
             Solution solution = null;
 
             switch (methodName){
                 case "SteepestLS_RandomStart_NodeExchangeCandidate":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
                 case "SteepestLS_RandomStart_EdgeExchangeCandidate":
-                    solution = solver.steepestLocalSearch(instance,StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance,StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
             }
 
             if (solution != null){
                 System.out.println("Iteration " + (i+1) + ": Cost = " + solution.totalCost + ", Running Time = " + solution.totalRunningTime + "ms");
-                solutions.add(solution);
             }
-
-        }
+            return solution;
+        });
 
 
         return experimentStatsCalculations(instance, methodName, solutions);
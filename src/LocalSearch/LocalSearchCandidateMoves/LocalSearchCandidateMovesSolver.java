@@ -1,8 +1,10 @@
 package LocalSearch.LocalSearchCandidateMoves;
 
-import LocalSearch.DeltaResult;
+import LocalSearch.ActiveQueue;
+import LocalSearch.BestMove;
 import LocalSearch.IntraRouteMoveType;
 import LocalSearch.LocalSearchSolver;
+import LocalSearch.OrOptMove;
 import LocalSearch.StartingSolutionType;
 import Utilities.*;
 import java.util.*;
@@ -11,139 +13,263 @@ import java.util.*;
 public class LocalSearchCandidateMovesSolver extends LocalSearchSolver {
 
     private static final int NUM_CANDIDATES = 10; // Can be tuned experimentally
+    protected static final int MAX_TOUCHED_NODES = 6; // most nodes touchedNodes writes (an Or-opt move)
 
 
     public LocalSearchCandidateMovesSolver(){
 
     }
 
+    public LocalSearchCandidateMovesSolver(Random random){
+        super(random);
+    }
+
     @Override
     public Solution steepestLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType) {
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
-        Map<Integer, Set<Integer>> candidateEdges = buildCandidateEdges(instance, NUM_CANDIDATES);
+        CandidateLists candidates = instance.candidateLists(NUM_CANDIDATES);
 
         Solution currentSolution = generateRandomSolution(instance);
-        List<Node> selectedNodes = new ArrayList<>(currentSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(currentSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
+        Tour tour = new Tour(currentSolution.cycle, instance.nodes.size());
 
-        int currentCost = currentSolution.totalCost;
-        int currentDistance = currentSolution.totalDistance;
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "steepestLocalSearchCandidate", tour,
+                currentSolution.totalCost, currentSolution.totalDistance);
+        BestMove bestMove = new BestMove();
         boolean improved = true;
 
         while (improved) {
             improved = false;
-            int bestDelta = 0;
-            int bestDistanceDelta = 0;
-            String bestMoveType = null;
-            int[] bestMove = null;
+            bestMove.reset();
 
             // Iterate over selected nodes
-            for (int idx = 0; idx < cycle.size(); idx++) {
-                int nodeId = cycle.get(idx);
-                Set<Integer> neighbors = candidateEdges.get(nodeId);
-                if (neighbors == null) continue;
-
-                int prevIdx = (idx == 0) ? cycle.size() - 1 : idx - 1;
-                int nextIdx = (idx == cycle.size() - 1) ? 0 : idx + 1;
-                int prevNodeId = cycle.get(prevIdx);
-                int nextNodeId = cycle.get(nextIdx);
-
-                for (int neighborId : neighbors) {
-                    if (selectedIds.contains(neighborId)) {
-                        // --- INTRA-route candidate move ---
-                        // The candidate edge (nodeId, neighborId) should be introduced
-                        int neighborIdx = cycle.indexOf(neighborId);
-
-                        // Skip if already adjacent in cycle
-                        if (Math.abs(idx - neighborIdx) == 1 ||
-                                (idx == 0 && neighborIdx == cycle.size() - 1) ||
-                                (neighborIdx == 0 && idx == cycle.size() - 1)) {
-                            continue;
-                        }
-
-                        int[] move = new int[]{idx, neighborIdx};
-                        int delta = calculateIntraDelta(instance, cycle, move, intraRouteMoveType);
-                        if (delta < bestDelta) {
-                            bestDelta = delta;
-                            bestMove = move;
-                            bestMoveType = "INTRA";
-                        }
-                    } else {
-                        // --- INTER-route candidate move ---
-                        // Exchange a selected node with non-selected neighborId
-                        // Two options: exchange prevNodeId or nextNodeId with neighborId
-                        // This introduces edge (nodeId, neighborId)
-
-                        DeltaResult delta1 = calculateInterDeltaDetailed(instance, cycle, selectedNodes, prevNodeId, neighborId);
-                        if (delta1.totalDelta < bestDelta) {
-                            bestDelta = delta1.totalDelta;
-                            bestDistanceDelta = delta1.distanceDelta;
-                            bestMove = new int[]{prevNodeId, neighborId};
-                            bestMoveType = "INTER";
-                        }
-
-                        DeltaResult delta2 = calculateInterDeltaDetailed(instance, cycle, selectedNodes, nextNodeId, neighborId);
-                        if (delta2.totalDelta < bestDelta) {
-                            bestDelta = delta2.totalDelta;
-                            bestDistanceDelta = delta2.distanceDelta;
-                            bestMove = new int[]{nextNodeId, neighborId};
-                            bestMoveType = "INTER";
-                        }
-                    }
-                }
+            for (int idx = 0; idx < tour.size; idx++) {
+                scanCandidateMoves(instance, tour, idx, candidates, intraRouteMoveType, bestMove);
             }
 
-            if (bestDelta < 0 && bestMoveType != null) {
+            if (bestMove.isImproving()) {
                 improved = true;
+                objective.apply(bestMove.delta, applyBestMove(instance, tour, bestMove, intraRouteMoveType));
+            }
+        }
 
-                if (bestMoveType.equals("INTRA")) {
-                    applyIntraMove(cycle, bestMove, intraRouteMoveType);
-                    currentDistance += bestDelta;
-                    currentCost += bestDelta;
-                } else {
-                    int selectedNodeId = bestMove[0];
-                    int nonSelectedNodeId = bestMove[1];
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, selectedNodeId, nonSelectedNodeId);
-                    currentDistance += bestDistanceDelta;
-                    currentCost += bestDelta;
-                }
+        objective.checkpoint();
+
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
+    }
+
+    // Don't-look-bit search: only nodes in the active queue are scanned. A node whose candidate moves don't
+    // improve leaves the queue, and applying a move re-activates every node whose candidate moves it changed
+    // (see activateChanged), so the search ends in a local optimum of the candidate neighbourhood.
+    public Solution dontLookBitsLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType) {
+        long startTime = System.nanoTime();
+
+        Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
+        Solution result = dontLookBitsLocalSearch(instance, currentSolution, intraRouteMoveType);
+
+        result.totalRunningTime = Deadline.millisSince(startTime);
+        return result;
+    }
+
+    public Solution dontLookBitsLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType) {
+        return dontLookBitsLocalSearch(instance, startingSolution, intraRouteMoveType, Deadline.NONE);
+    }
+
+    // Stops when the deadline passes and returns the tour reached so far
+    public Solution dontLookBitsLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType,
+                                            Deadline deadline) {
+        long startTime = System.nanoTime();
+
+        CandidateLists candidates = instance.candidateLists(NUM_CANDIDATES);
+        Tour tour = new Tour(startingSolution.cycle, instance.nodes.size());
+
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "dontLookBitsLocalSearch", tour,
+                startingSolution.totalCost, startingSolution.totalDistance);
+        BestMove bestMove = new BestMove();
+
+        ActiveQueue active = new ActiveQueue(instance.nodes.size());
+        for (int idx = 0; idx < tour.size; idx++) {
+            active.add(tour.get(idx));
+        }
+
+        // changedNodes writes the touched nodes, then the removed node of an exchange or the stretch of an
+        // intra move, which is shorter than the tour
+        int[] changed = new int[MAX_TOUCHED_NODES + Math.max(1, tour.size)];
+        while (!active.isEmpty() && !deadline.expired()) {
+            int nodeId = active.poll();
+            if (!tour.contains(nodeId)) continue; // exchanged out since it was activated
+
+            bestMove.reset();
+            scanCandidateMoves(instance, tour, tour.positionOf(nodeId), candidates, intraRouteMoveType, bestMove);
+
+            if (bestMove.isImproving()) {
+                int numChanged = changedNodes(tour, bestMove, intraRouteMoveType, changed);
+                objective.apply(bestMove.delta, applyBestMove(instance, tour, bestMove, intraRouteMoveType));
+
+                active.add(nodeId);
+                activateChanged(tour, candidates, intraRouteMoveType, changed, numChanged, active);
             }
         }
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, endTime - startTime);
+        objective.checkpoint();
+
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
     }
 
+    // Evaluates the candidate moves that introduce an edge between the node at idx and one of its candidates
+    protected void scanCandidateMoves(Instance instance, Tour tour, int idx, CandidateLists candidates,
+                                    IntraRouteMoveType intraRouteMoveType, BestMove bestMove) {
+        int[] neighbors = candidates.neighbors;
+        int k = candidates.k;
+        int nodeId = tour.get(idx);
+
+        int prevNodeId = tour.get(tour.prevPos(idx));
+        int nextNodeId = tour.get(tour.nextPos(idx));
+
+        for (int c = nodeId * k; c < nodeId * k + k; c++) {
+            int neighborId = neighbors[c];
+            if (tour.contains(neighborId)) {
+                // --- INTRA-route candidate move ---
+                // The candidate edge (nodeId, neighborId) should be introduced
+                int neighborIdx = tour.positionOf(neighborId);
 
+                if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+                    scanCandidateOrOpt(instance, tour, idx, neighborIdx, bestMove);
+                    continue;
+                }
 
-    protected Map<Integer, Set<Integer>> buildCandidateEdges(Instance instance, int k) {
-        Map<Integer, Set<Integer>> candidateEdges = new HashMap<>();
-        int n = instance.nodes.size();
+                // Skip if already adjacent in cycle
+                if (tour.nextPos(idx) == neighborIdx || tour.nextPos(neighborIdx) == idx) {
+                    continue;
+                }
 
-        for (Node node : instance.nodes) {
-            int id = node.id;
-            List<int[]> neighbors = new ArrayList<>();
+                bestMove.visitIntra(idx, neighborIdx, calculateIntraDelta(instance, tour, idx, neighborIdx, intraRouteMoveType));
+            } else {
+                // --- INTER-route candidate move ---
+                // Exchange a selected node with non-selected neighborId
+                // Two options: exchange prevNodeId or nextNodeId with neighborId
+                // This introduces edge (nodeId, neighborId)
 
-            for (Node other : instance.nodes) {
-                if (node.id == other.id) continue;
-                int metric = instance.distanceMatrix[node.id][other.id] + other.cost;
-                neighbors.add(new int[]{other.id, metric});
+                bestMove.visitInter(prevNodeId, neighborId, calculateInterDelta(instance, tour, prevNodeId, neighborId));
+                bestMove.visitInter(nextNodeId, neighborId, calculateInterDelta(instance, tour, nextNodeId, neighborId));
             }
+        }
+    }
+
+    // Or-opt moves that put the node at idx next to the node at neighborIdx: a segment starting or ending
+    // at idx goes right after or right before the neighbor, in the direction that makes them adjacent
+    private void scanCandidateOrOpt(Instance instance, Tour tour, int idx, int neighborIdx, BestMove bestMove) {
+        int afterNeighbor = neighborIdx;
+        int beforeNeighbor = tour.prevPos(neighborIdx);
+
+        for (int length = 1; length <= OrOptMove.MAX_SEGMENT_LENGTH; length++) {
+            // Segment starting at idx
+            visitOrOpt(instance, tour, idx, OrOptMove.encode(afterNeighbor, length, false), bestMove);
+            visitOrOpt(instance, tour, idx, OrOptMove.encode(beforeNeighbor, length, true), bestMove);
+
+            // Segment ending at idx
+            if (length > 1) {
+                int from = (idx - length + 1 + tour.size) % tour.size;
+                visitOrOpt(instance, tour, from, OrOptMove.encode(afterNeighbor, length, true), bestMove);
+                visitOrOpt(instance, tour, from, OrOptMove.encode(beforeNeighbor, length, false), bestMove);
+            }
+        }
+    }
+
+    private void visitOrOpt(Instance instance, Tour tour, int from, int code, BestMove bestMove) {
+        if (isValidOrOpt(tour, from, code)) {
+            bestMove.visitIntra(from, code, calculateOrOptDelta(instance, tour, from, code));
+        }
+    }
 
-            // Sort by (distance + cost)
-            neighbors.sort(Comparator.comparingInt(a -> a[1]));
+    // Fills changed with the nodes whose predecessor or successor the move is about to change, and the node
+    // an exchange removes, and returns their number. Beyond touchedNodes these are the whole stretch an edge
+    // exchange reverses and the whole segment an Or-opt moves.
+    private int changedNodes(Tour tour, BestMove bestMove, IntraRouteMoveType intraRouteMoveType, int[] changed) {
+        int count = touchedNodes(tour, bestMove, intraRouteMoveType, changed);
+        if (!bestMove.isIntra()) {
+            changed[count++] = bestMove.first;
+            return count;
+        }
+        if (intraRouteMoveType == IntraRouteMoveType.NODE_EXCHANGE) return count;
 
-            Set<Integer> nearest = new HashSet<>();
-            for (int i = 0; i < Math.min(k, neighbors.size()); i++) {
-                nearest.add(neighbors.get(i)[0]);
+        int from;
+        int length;
+        if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+            from = bestMove.first;
+            length = OrOptMove.length(bestMove.second);
+        } else {
+            from = tour.nextPos(bestMove.first);
+            length = bestMove.second - bestMove.first;
+            if (length < 0) length += tour.size;
+        }
+        for (int k = 0; k < length; k++) {
+            changed[count++] = tour.get((from + k) % tour.size);
+        }
+        return count;
+    }
+
+    // Called after the move. The candidate moves of a node read the tour up to `window` positions around it
+    // (the segments of Or-opt, the neighbours of exchanged nodes) and one position around each candidate,
+    // so the nodes near a changed node and the nodes that have it as a candidate are activated
+    private void activateChanged(Tour tour, CandidateLists candidates, IntraRouteMoveType intraRouteMoveType,
+                                 int[] changed, int numChanged, ActiveQueue active) {
+        int window = intraRouteMoveType == IntraRouteMoveType.OR_OPT ? Math.max(2, OrOptMove.MAX_SEGMENT_LENGTH) : 2;
+        int[] holders = candidates.holders;
+
+        for (int t = 0; t < numChanged; t++) {
+            int nodeId = changed[t];
+            for (int h = candidates.holderStart[nodeId]; h < candidates.holderStart[nodeId + 1]; h++) {
+                if (tour.contains(holders[h])) active.add(holders[h]);
             }
+            if (!tour.contains(nodeId)) continue;
 
-            candidateEdges.put(id, nearest);
+            int pos = tour.positionOf(nodeId);
+            for (int d = -window; d <= window; d++) {
+                active.add(tour.get(Math.floorMod(pos + d, tour.size)));
+            }
+        }
+    }
+
+    // Fills touched with the nodes whose incident edges the move is about to change and returns their number
+    protected int touchedNodes(Tour tour, BestMove bestMove, IntraRouteMoveType intraRouteMoveType, int[] touched) {
+        if (!bestMove.isIntra()) {
+            // Exchange: the incoming node and the neighbors of the outgoing one
+            touched[0] = tour.pred(bestMove.first);
+            touched[1] = tour.succ(bestMove.first);
+            touched[2] = bestMove.second;
+            return 3;
+        }
+
+        int i = bestMove.first;
+        int j = bestMove.second;
+        if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+            // Segment ends, their old neighbors and the target edge
+            int last = (i + OrOptMove.length(j) - 1) % tour.size;
+            int after = OrOptMove.targetPos(j);
+            touched[0] = tour.get(tour.prevPos(i));
+            touched[1] = tour.get(i);
+            touched[2] = tour.get(last);
+            touched[3] = tour.get(tour.nextPos(last));
+            touched[4] = tour.get(after);
+            touched[5] = tour.get(tour.nextPos(after));
+            return 6;
+        }
+        if (intraRouteMoveType == IntraRouteMoveType.NODE_EXCHANGE) {
+            touched[0] = tour.get(tour.prevPos(i));
+            touched[1] = tour.get(i);
+            touched[2] = tour.get(tour.nextPos(i));
+            touched[3] = tour.get(tour.prevPos(j));
+            touched[4] = tour.get(j);
+            touched[5] = tour.get(tour.nextPos(j));
+            return 6;
         }
 
-        return candidateEdges;
+        // Edge exchange replaces (i, i+1) and (j, j+1)
+        touched[0] = tour.get(i);
+        touched[1] = tour.get(tour.nextPos(i));
+        touched[2] = tour.get(j);
+        touched[3] = tour.get(tour.nextPos(j));
+        return 4;
     }
 }
@@ -1,11 +1,9 @@
 package LocalSearch;
 
-import GreedyHeuristics.GreedyHeuristicsSolver;
 import Utilities.*;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 public class LocalSearchExperimentRunner extends ExperimentRunner implements ExperimentRunnerInterface {
 
@@ -35,47 +33,40 @@ public class LocalSearchExperimentRunner extends ExperimentRunner implements Exp
 
     @Override
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
-        List<Solution> solutions = new ArrayList<>();
-
-
-        for (int i = 0; i < numIterations; i++) {
+        List<Solution> solutions = runIterations(instance, methodName, numIterations, solver, LocalSearchSolver::new, (worker, i, random) -> {
             Solution solution = null;
-            int r = new Random().nextInt(instance.nodes.size());
             switch (methodName) {
                 case "GreedyLS_RandomStart_NodeExchange":
-                    solution = solver.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
                 case "GreedyLS_RandomStart_EdgeExchange":
-                    solution = solver.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.greedyLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
                 case "GreedyLS_GreedyStart_NodeExchange":
-                    solution = solver.greedyLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.greedyLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
 
                 case "GreedyLS_GreedyStart_EdgeExchange":
-                    solution = solver.greedyLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.greedyLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
                     //
                 case "SteepestLS_RandomStart_NodeExchange":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
                 case "SteepestLS_RandomStart_EdgeExchange":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
                 case "SteepestLS_GreedyStart_NodeExchange":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.NODE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.NODE_EXCHANGE);
                     break;
 
                 case "SteepestLS_GreedyStart_EdgeExchange":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.EDGE_EXCHANGE);
+                    solution = worker.steepestLocalSearch(instance, StartingSolutionType.GREEDY, IntraRouteMoveType.EDGE_EXCHANGE);
                     break;
             }
 
-
-            if (solution != null) {
-                solutions.add(solution);
-            }
-        }
+            return solution;
+        });
 
         return experimentStatsCalculations(instance, methodName, solutions);
     }
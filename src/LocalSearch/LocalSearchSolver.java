@@ -13,73 +13,79 @@ public class LocalSearchSolver extends Solver {
     private Random random;
 
     public LocalSearchSolver(){
+        this(new Random());
+    }
+
+    public LocalSearchSolver(Random random){
         this.greedySolver = new GreedyRegretHeuristicsSolver();
-        this.random = new Random();
+        this.random = random;
     }
 
     public Solution greedyLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType){
-        int startTime = (int) System.currentTimeMillis();
+        return greedyLocalSearch(instance, startingSolutionType, intraRouteMoveType, Deadline.NONE);
+    }
 
-        Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
+    // Stops when the deadline passes and returns the tour reached so far
+    public Solution greedyLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType,
+                                      Deadline deadline){
+        long startTime = System.nanoTime();
 
-        List<Node> selectedNodes = new ArrayList<>(currentSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(currentSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
+        Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
 
-        int currentCost = currentSolution.totalCost;
-        int currentDistance = currentSolution.totalDistance;
+        Tour tour = new Tour(currentSolution.cycle, instance.nodes.size());
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "greedyLocalSearch", tour,
+                currentSolution.totalCost, currentSolution.totalDistance);
 
         boolean improved = true;
 
-        while (improved) {
+        while (improved && !deadline.expired()) {
             improved = false;
 
             boolean tryIntraFirst = random.nextBoolean();
 
             if (tryIntraFirst) {
-                improved = tryIntraRouteMove(instance, cycle, intraRouteMoveType);
-                if (improved) {
-                    // Recalculate costs after intra move
-                    currentDistance = calculateTotalDistance(instance, cycle);
-                    int totalNodeCost = selectedNodes.stream().mapToInt(n -> n.cost).sum();
-                    currentCost = currentDistance + totalNodeCost;
+                MoveResult intraResult = tryIntraRouteMove(instance, tour, intraRouteMoveType);
+                if (intraResult.improved) {
+                    improved = true;
+                    objective.applyIntra(intraResult.distanceDelta);
                     continue;
                 }
             }
 
             // Try inter-route move if intra didn't improve (or wasn't tried first)
-            MoveResult interResult = tryInterRouteMove(instance, cycle, selectedNodes, selectedIds);
+            MoveResult interResult = tryInterRouteMove(instance, tour);
             if (interResult.improved) {
                 improved = true;
-                currentDistance += interResult.distanceDelta;
-                currentCost += interResult.totalDelta;
+                objective.apply(interResult.totalDelta, interResult.distanceDelta);
                 continue;
             }
 
             // If we tried intra first and it didn't work, don't try it again
             // If we tried inter first, now try intra
             if (!tryIntraFirst) {
-                improved = tryIntraRouteMove(instance, cycle, intraRouteMoveType);
-                if (improved) {
-                    currentDistance = calculateTotalDistance(instance, cycle);
-                    int totalNodeCost = selectedNodes.stream().mapToInt(n -> n.cost).sum();
-                    currentCost = currentDistance + totalNodeCost;
+                MoveResult intraResult = tryIntraRouteMove(instance, tour, intraRouteMoveType);
+                if (intraResult.improved) {
+                    improved = true;
+                    objective.applyIntra(intraResult.distanceDelta);
                 }
             }
         }
+        objective.checkpoint();
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, endTime - startTime);
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
     }
 
-    private boolean tryIntraRouteMove(Instance instance, List<Integer> cycle, IntraRouteMoveType intraRouteMoveType) {
+    private MoveResult tryIntraRouteMove(Instance instance, Tour tour, IntraRouteMoveType intraRouteMoveType) {
         // Generate randomized positions
-        List<Integer> positions = IntStream.range(0, cycle.size())
+        List<Integer> positions = IntStream.range(0, tour.size)
                 .boxed()
                 .collect(Collectors.toList());
         Collections.shuffle(positions, random);
 
+        if (intraRouteMoveType == IntraRouteMoveType.OR_OPT) {
+            return tryOrOptMove(instance, tour, positions);
+        }
+
         // Try moves in random order, stop at first improvement
         for (int i = 0; i < positions.size(); i++) {
             int pos1 = positions.get(i);
@@ -97,32 +103,52 @@ public class LocalSearchSolver extends Solver {
                 // For edge exchange, skip if not valid
                 if (intraRouteMoveType == IntraRouteMoveType.EDGE_EXCHANGE) {
                     if (pos2 - pos1 < 2) continue;
-                    if (pos1 == 0 && pos2 == cycle.size() - 1) continue;
+                    if (pos1 == 0 && pos2 == tour.size - 1) continue;
                 }
 
-                int[] move = new int[]{pos1, pos2};
-                int delta = calculateIntraDelta(instance, cycle, move, intraRouteMoveType);
+                int delta = calculateIntraDelta(instance, tour, pos1, pos2, intraRouteMoveType);
 
                 if (delta < 0) {
-                    applyIntraMove(cycle, move, intraRouteMoveType);
-                    return true;
+                    applyIntraMove(tour, pos1, pos2, intraRouteMoveType);
+                    return new MoveResult(true, delta, delta);
                 }
             }
         }
 
-        return false;
+        return new MoveResult(false, 0, 0);
     }
 
-    private MoveResult tryInterRouteMove(Instance instance, List<Integer> cycle,
-                                         List<Node> selectedNodes, Set<Integer> selectedIds) {
+    private MoveResult tryOrOptMove(Instance instance, Tour tour, List<Integer> positions) {
+        // Segment starts and targets in random order, stop at first improvement
+        for (int from : positions) {
+            for (int after : positions) {
+                for (int length = 1; length <= OrOptMove.MAX_SEGMENT_LENGTH; length++) {
+                    for (int r = 0; r < 2; r++) {
+                        int code = OrOptMove.encode(after, length, r == 1);
+                        if (!isValidOrOpt(tour, from, code)) continue;
+
+                        int delta = calculateOrOptDelta(instance, tour, from, code);
+                        if (delta < 0) {
+                            applyIntraMove(tour, from, code, IntraRouteMoveType.OR_OPT);
+                            return new MoveResult(true, delta, delta);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new MoveResult(false, 0, 0);
+    }
+
+    private MoveResult tryInterRouteMove(Instance instance, Tour tour) {
         // Create randomized list of selected nodes
-        List<Integer> selectedList = new ArrayList<>(selectedIds);
+        List<Integer> selectedList = tour.toCycle();
         Collections.shuffle(selectedList, random);
 
         // Create randomized list of non-selected nodes
         List<Integer> nonSelectedList = new ArrayList<>();
         for (Node node : instance.nodes) {
-            if (!selectedIds.contains(node.id)) {
+            if (!tour.contains(node.id)) {
                 nonSelectedList.add(node.id);
             }
         }
@@ -131,13 +157,13 @@ public class LocalSearchSolver extends Solver {
         // Try moves in random order
         for (int selectedNodeId : selectedList) {
             for (int nonSelectedNodeId : nonSelectedList) {
-                DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes,
-                        selectedNodeId, nonSelectedNodeId);
+                int delta = calculateInterDelta(instance, tour, selectedNodeId, nonSelectedNodeId);
 
-                if (deltaResult.totalDelta < 0) {
+                if (delta < 0) {
+                    int distanceDelta = calculateInterDistanceDelta(instance, tour, selectedNodeId, nonSelectedNodeId);
                     // Apply the move
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, selectedNodeId, nonSelectedNodeId);
-                    return new MoveResult(true, deltaResult.totalDelta, deltaResult.distanceDelta);
+                    applyInterMove(tour, selectedNodeId, nonSelectedNodeId);
+                    return new MoveResult(true, delta, distanceDelta);
                 }
             }
         }
@@ -146,78 +172,60 @@ public class LocalSearchSolver extends Solver {
     }
 
     public Solution steepestLocalSearch(Instance instance, StartingSolutionType startingSolutionType, IntraRouteMoveType intraRouteMoveType){
-        int startTime = (int) System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         // Generate starting solution
         Solution currentSolution = generateStartingSolution(instance, startingSolutionType);
+        Solution result = steepestLocalSearch(instance, currentSolution, intraRouteMoveType);
+
+        result.totalRunningTime = Deadline.millisSince(startTime);
+        return result;
+    }
+
+    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType){
+        return steepestLocalSearch(instance, startingSolution, intraRouteMoveType, new Tour(instance.size), Deadline.NONE);
+    }
+
+    // Stops when the deadline passes and returns the tour reached so far
+    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType, Deadline deadline){
+        return steepestLocalSearch(instance, startingSolution, intraRouteMoveType, new Tour(instance.size), deadline);
+    }
+
+    // Same as above, but works inside the given scratch tour so repeated calls don't reallocate it
+    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType, Tour tour){
+        return steepestLocalSearch(instance, startingSolution, intraRouteMoveType, tour, Deadline.NONE);
+    }
 
-        // Make copies of the solution data
-        List<Node> selectedNodes = new ArrayList<>(currentSolution.selectedNodes);
-        List<Integer> cycle = new ArrayList<>(currentSolution.cycle);
-        Set<Integer> selectedIds = new HashSet<>();
-        for (Node n : selectedNodes) selectedIds.add(n.id);
+    public Solution steepestLocalSearch(Instance instance, Solution startingSolution, IntraRouteMoveType intraRouteMoveType,
+                                        Tour tour, Deadline deadline){
+        long startTime = System.nanoTime();
 
-        int currentCost = currentSolution.totalCost;
-        int currentDistance = currentSolution.totalDistance;
+        // Work on a primitive copy of the solution
+        tour.load(startingSolution.cycle);
 
+        ObjectiveTracker objective = new ObjectiveTracker(instance, "steepestLocalSearch", tour,
+                startingSolution.totalCost, startingSolution.totalDistance);
+
+        BestMove bestMove = new BestMove();
         boolean improved = true;
 
-        while (improved) {
+        while (improved && !deadline.expired()) {
             improved = false;
+            bestMove.reset();
 
-            int bestDelta = 0;
-            String bestMoveType = null;
-            int[] bestMove = null;
-            int bestDistanceDelta = 0;
-
-            // Evaluate all intra-route moves
-            List<int[]> intraMoves = generateIntraMoves(cycle.size(), intraRouteMoveType);
-            for (int[] move : intraMoves) {
-                int delta = calculateIntraDelta(instance, cycle, move, intraRouteMoveType);
-                if (delta < bestDelta) {
-                    bestDelta = delta;
-                    bestMoveType = "INTRA";
-                    bestMove = move;
-                }
-            }
-
-            // Evaluate all inter-route moves
-            List<int[]> interMoves = generateInterMoves(instance, selectedIds);
-            for (int[] move : interMoves) {
-                int selectedNodeId = move[0];
-                int nonSelectedNodeId = move[1];
-
-                DeltaResult deltaResult = calculateInterDeltaDetailed(instance, cycle, selectedNodes,
-                        selectedNodeId, nonSelectedNodeId);
-                if (deltaResult.totalDelta < bestDelta) {
-                    bestDelta = deltaResult.totalDelta;
-                    bestDistanceDelta = deltaResult.distanceDelta;
-                    bestMoveType = "INTER";
-                    bestMove = move;
-                }
-            }
+            // Evaluate all intra-route and inter-route moves in place
+            scanIntraMoves(instance, tour, intraRouteMoveType, bestMove);
+            scanInterMoves(instance, tour, bestMove);
 
             // Apply best move if improving
-            if (bestDelta < 0) {
+            if (bestMove.isImproving()) {
                 improved = true;
-
-                if (bestMoveType.equals("INTRA")) {
-                    applyIntraMove(cycle, bestMove, intraRouteMoveType);
-                    currentDistance += bestDelta;
-                    currentCost += bestDelta;
-                } else {
-                    int selectedNodeId = bestMove[0];
-                    int nonSelectedNodeId = bestMove[1];
-                    applyInterMove(instance, selectedNodes, cycle, selectedIds, selectedNodeId, nonSelectedNodeId);
-
-                    currentDistance += bestDistanceDelta;
-                    currentCost += bestDelta;
-                }
+                objective.apply(bestMove.delta, applyBestMove(instance, tour, bestMove, intraRouteMoveType));
             }
         }
+        objective.checkpoint();
 
-        int endTime = (int) System.currentTimeMillis();
-        return new Solution(selectedNodes, cycle, currentCost, currentDistance, endTime - startTime);
+        return new Solution(tour.toSelectedNodes(instance.nodes), tour.toCycle(), objective.cost, objective.distance, Deadline.millisSince(startTime));
     }
 
     protected Solution generateStartingSolution(Instance instance, StartingSolutionType type) {
@@ -226,7 +234,8 @@ public class LocalSearchSolver extends Solver {
         } else {
             // Use best greedy heuristic - weighted regret with greedy cycle
             Node startNode = instance.nodes.get(random.nextInt(instance.nodes.size()));
-            return greedySolver.greedyWeightedRegretGreedyCycle(instance, startNode, 0.5, 0.5);
+            return instance.constructions.get("greedyWeightedRegretGreedyCycle", startNode.id, 0.5, 0.5,
+                    () -> greedySolver.greedyWeightedRegretGreedyCycle(instance, startNode, 0.5, 0.5));
         }
     }
 
@@ -249,14 +258,28 @@ public class LocalSearchSolver extends Solver {
         return new Solution(selected, order, totalCost, totalDistance, 0);
     }
 
-    protected List<int[]> generateIntraMoves(int cycleSize, IntraRouteMoveType moveType) {
-        List<int[]> moves = new ArrayList<>();
+    protected void scanIntraMoves(Instance instance, Tour tour, IntraRouteMoveType moveType, MoveVisitor visitor) {
+        int cycleSize = tour.size;
 
         if (moveType == IntraRouteMoveType.NODE_EXCHANGE) {
             // All pairs of positions to swap nodes
             for (int i = 0; i < cycleSize; i++) {
                 for (int j = i + 1; j < cycleSize; j++) {
-                    moves.add(new int[]{i, j});
+                    visitor.visitIntra(i, j, calculateNodeExchangeDelta(instance, tour, i, j));
+                }
+            }
+        } else if (moveType == IntraRouteMoveType.OR_OPT) {
+            // All segments of 1-3 nodes, moved between any two consecutive nodes outside them, both directions
+            if (cycleSize < OrOptMove.MAX_SEGMENT_LENGTH + 3) return;
+            for (int i = 0; i < cycleSize; i++) {
+                for (int length = 1; length <= OrOptMove.MAX_SEGMENT_LENGTH; length++) {
+                    for (int offset = length; offset < cycleSize - 1; offset++) {
+                        int after = (i + offset) % cycleSize;
+                        int code = OrOptMove.encode(after, length, false);
+                        int reversedCode = OrOptMove.encode(after, length, true);
+                        visitor.visitIntra(i, code, calculateOrOptDelta(instance, tour, i, code));
+                        visitor.visitIntra(i, reversedCode, calculateOrOptDelta(instance, tour, i, reversedCode));
+                    }
                 }
             }
         } else {
@@ -264,202 +287,175 @@ public class LocalSearchSolver extends Solver {
             for (int i = 0; i < cycleSize; i++) {
                 for (int j = i + 2; j < cycleSize; j++) {
                     if (i == 0 && j == cycleSize - 1) continue; // Skip adjacent edges
-                    moves.add(new int[]{i, j});
+                    visitor.visitIntra(i, j, calculateEdgeExchangeDelta(instance, tour, i, j));
                 }
             }
         }
-
-        return moves;
     }
 
-    protected List<int[]> generateInterMoves(Instance instance, Set<Integer> selectedIds) {
-        List<int[]> moves = new ArrayList<>();
+    protected void scanInterMoves(Instance instance, Tour tour, MoveVisitor visitor) {
+        int numNodes = instance.size;
 
-        for (int selectedId : selectedIds) {
-            for (Node node : instance.nodes) {
-                if (!selectedIds.contains(node.id)) {
-                    moves.add(new int[]{selectedId, node.id});
+        for (int pos = 0; pos < tour.size; pos++) {
+            int selectedId = tour.get(pos);
+            for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+                if (!tour.contains(nodeId)) {
+                    visitor.visitInter(selectedId, nodeId, calculateInterDelta(instance, tour, selectedId, nodeId));
                 }
             }
         }
-
-        return moves;
     }
 
-    protected int calculateIntraDelta(Instance instance, List<Integer> cycle, int[] move, IntraRouteMoveType moveType) {
-        int i = move[0];
-        int j = move[1];
+    // Applies the move held by bestMove and returns its distance delta
+    protected int applyBestMove(Instance instance, Tour tour, BestMove bestMove, IntraRouteMoveType intraRouteMoveType) {
+        if (bestMove.isIntra()) {
+            applyIntraMove(tour, bestMove.first, bestMove.second, intraRouteMoveType);
+            return bestMove.delta;
+        }
 
+        int distanceDelta = calculateInterDistanceDelta(instance, tour, bestMove.first, bestMove.second);
+        applyInterMove(tour, bestMove.first, bestMove.second);
+        return distanceDelta;
+    }
+
+    protected int calculateIntraDelta(Instance instance, Tour tour, int i, int j, IntraRouteMoveType moveType) {
         if (moveType == IntraRouteMoveType.NODE_EXCHANGE) {
-            return calculateNodeExchangeDelta(instance, cycle, i, j);
+            return calculateNodeExchangeDelta(instance, tour, i, j);
+        } else if (moveType == IntraRouteMoveType.OR_OPT) {
+            return calculateOrOptDelta(instance, tour, i, j);
         } else {
-            return calculateEdgeExchangeDelta(instance, cycle, i, j);
+            return calculateEdgeExchangeDelta(instance, tour, i, j);
         }
     }
 
-    protected int calculateNodeExchangeDelta(Instance instance, List<Integer> cycle, int pos1, int pos2) {
-        int n = cycle.size();
+    protected int calculateNodeExchangeDelta(Instance instance, Tour tour, int pos1, int pos2) {
 
-        int node1 = cycle.get(pos1);
-        int node2 = cycle.get(pos2);
+        int node1 = tour.get(pos1);
+        int node2 = tour.get(pos2);
 
-        int prev1 = cycle.get((pos1 - 1 + n) % n);
-        int next1 = cycle.get((pos1 + 1) % n);
-        int prev2 = cycle.get((pos2 - 1 + n) % n);
-        int next2 = cycle.get((pos2 + 1) % n);
+        int prev1 = tour.get(tour.prevPos(pos1));
+        int next1 = tour.get(tour.nextPos(pos1));
+        int prev2 = tour.get(tour.prevPos(pos2));
+        int next2 = tour.get(tour.nextPos(pos2));
 
         // If nodes are adjacent, handle specially
-        if ((pos1 + 1) % n == pos2 || (pos2 + 1) % n == pos1) {
-            // Adjacent nodes
-            if ((pos1 + 1) % n == pos2) {
-                // node1 -> node2 -> next2
-                int oldCost = instance.distanceMatrix[prev1][node1] +
-                        instance.distanceMatrix[node1][node2] +
-                        instance.distanceMatrix[node2][next2];
-                int newCost = instance.distanceMatrix[prev1][node2] +
-                        instance.distanceMatrix[node2][node1] +
-                        instance.distanceMatrix[node1][next2];
-                return newCost - oldCost;
-            } else {
-                // node2 -> node1 -> next1
-                int oldCost = instance.distanceMatrix[prev2][node2] +
-                        instance.distanceMatrix[node2][node1] +
-                        instance.distanceMatrix[node1][next1];
-                int newCost = instance.distanceMatrix[prev2][node1] +
-                        instance.distanceMatrix[node1][node2] +
-                        instance.distanceMatrix[node2][next1];
-                return newCost - oldCost;
-            }
+        if (tour.nextPos(pos1) == pos2) {
+            // node1 -> node2 -> next2
+            int oldCost = instance.distance(prev1, node1) + instance.distance(node1, node2) + instance.distance(node2, next2);
+            int newCost = instance.distance(prev1, node2) + instance.distance(node2, node1) + instance.distance(node1, next2);
+            return newCost - oldCost;
+        }
+        if (tour.nextPos(pos2) == pos1) {
+            // node2 -> node1 -> next1
+            int oldCost = instance.distance(prev2, node2) + instance.distance(node2, node1) + instance.distance(node1, next1);
+            int newCost = instance.distance(prev2, node1) + instance.distance(node1, node2) + instance.distance(node2, next1);
+            return newCost - oldCost;
         }
 
         // Non-adjacent nodes
-        int oldCost = instance.distanceMatrix[prev1][node1] +
-                instance.distanceMatrix[node1][next1] +
-                instance.distanceMatrix[prev2][node2] +
-                instance.distanceMatrix[node2][next2];
-
-        int newCost = instance.distanceMatrix[prev1][node2] +
-                instance.distanceMatrix[node2][next1] +
-                instance.distanceMatrix[prev2][node1] +
-                instance.distanceMatrix[node1][next2];
+        int oldCost = instance.distance(prev1, node1) + instance.distance(node1, next1)
+                + instance.distance(prev2, node2) + instance.distance(node2, next2);
+        int newCost = instance.distance(prev1, node2) + instance.distance(node2, next1)
+                + instance.distance(prev2, node1) + instance.distance(node1, next2);
 
         return newCost - oldCost;
     }
 
-    protected int calculateEdgeExchangeDelta(Instance instance, List<Integer> cycle, int i, int j) {
+    protected int calculateEdgeExchangeDelta(Instance instance, Tour tour, int i, int j) {
         // Edge exchange (2-opt): reverse the segment between positions i and j
-        int n = cycle.size();
 
-        int node1 = cycle.get(i);
-        int node2 = cycle.get((i + 1) % n);
-        int node3 = cycle.get(j);
-        int node4 = cycle.get((j + 1) % n);
+        int node1 = tour.get(i);
+        int node2 = tour.get(tour.nextPos(i));
+        int node3 = tour.get(j);
+        int node4 = tour.get(tour.nextPos(j));
 
         // Old edges: (node1, node2) and (node3, node4)
         // New edges: (node1, node3) and (node2, node4)
-        int oldCost = instance.distanceMatrix[node1][node2] + instance.distanceMatrix[node3][node4];
-        int newCost = instance.distanceMatrix[node1][node3] + instance.distanceMatrix[node2][node4];
+        int oldCost = instance.distance(node1, node2) + instance.distance(node3, node4);
+        int newCost = instance.distance(node1, node3) + instance.distance(node2, node4);
 
         return newCost - oldCost;
     }
 
-    protected DeltaResult calculateInterDeltaDetailed(Instance instance, List<Integer> cycle, List<Node> selectedNodes,
-                                                    int selectedNodeId, int nonSelectedNodeId) {
-        // Find position of selected node in cycle
-        int pos = cycle.indexOf(selectedNodeId);
-        if (pos == -1) return new DeltaResult(Integer.MAX_VALUE, 0);
-
-        int n = cycle.size();
-        int prev = cycle.get((pos - 1 + n) % n);
-        int next = cycle.get((pos + 1) % n);
-
-        // Calculate node cost difference
-        Node selectedNode = null;
-        Node nonSelectedNode = null;
-        for (Node node : selectedNodes) {
-            if (node.id == selectedNodeId) {
-                selectedNode = node;
-                break;
-            }
-        }
-        for (Node node : instance.nodes) {
-            if (node.id == nonSelectedNodeId) {
-                nonSelectedNode = node;
-                break;
-            }
-        }
+    // Segment starts at position `from`, code is an OrOptMove. Callers make sure the move is valid
+    protected int calculateOrOptDelta(Instance instance, Tour tour, int from, int code) {
 
-        if (selectedNode == null || nonSelectedNode == null) {
-            return new DeltaResult(Integer.MAX_VALUE, 0);
-        }
+        int last = (from + OrOptMove.length(code) - 1) % tour.size;
+        int after = OrOptMove.targetPos(code);
 
-        int costDelta = nonSelectedNode.cost - selectedNode.cost;
+        int prev = tour.get(tour.prevPos(from));
+        int first = tour.get(from);
+        int end = tour.get(last);
+        int next = tour.get(tour.nextPos(last));
+        int p = tour.get(after);
+        int q = tour.get(tour.nextPos(after));
 
-        // Calculate distance difference
-        int oldDistance = instance.distanceMatrix[prev][selectedNodeId] + instance.distanceMatrix[selectedNodeId][next];
-        int newDistance = instance.distanceMatrix[prev][nonSelectedNodeId] + instance.distanceMatrix[nonSelectedNodeId][next];
-        int distanceDelta = newDistance - oldDistance;
+        // Old edges: (prev, first), (end, next), (p, q)
+        // New edges: (prev, next) and the segment between p and q
+        int oldCost = instance.distance(prev, first) + instance.distance(end, next) + instance.distance(p, q);
+        int newCost = instance.distance(prev, next) + (OrOptMove.reversed(code)
+                ? instance.distance(p, end) + instance.distance(first, q)
+                : instance.distance(p, first) + instance.distance(end, q));
 
-        return new DeltaResult(costDelta + distanceDelta, distanceDelta);
+        return newCost - oldCost;
     }
 
-    protected void applyIntraMove(List<Integer> cycle, int[] move, IntraRouteMoveType moveType) {
-        int i = move[0];
-        int j = move[1];
+    // The target edge must not touch the segment, and the cycle must keep at least two other nodes
+    protected boolean isValidOrOpt(Tour tour, int from, int code) {
+        int length = OrOptMove.length(code);
+        int after = OrOptMove.targetPos(code);
+        if (tour.size < length + 3 || from >= tour.size || after >= tour.size) return false;
 
-        if (moveType == IntraRouteMoveType.NODE_EXCHANGE) {
-            // Swap nodes at positions i and j
-            int temp = cycle.get(i);
-            cycle.set(i, cycle.get(j));
-            cycle.set(j, temp);
-        } else {
-            // Edge exchange: reverse segment between i+1 and j
-            int start = (i + 1) % cycle.size();
-            int end = j;
-
-            if (start <= end) {
-                Collections.reverse(cycle.subList(start, end + 1));
-            } else {
-                // Handle wrap-around
-                List<Integer> temp = new ArrayList<>();
-                for (int k = start; k < cycle.size(); k++) temp.add(cycle.get(k));
-                for (int k = 0; k <= end; k++) temp.add(cycle.get(k));
-                Collections.reverse(temp);
-
-                int idx = 0;
-                for (int k = start; k < cycle.size(); k++) cycle.set(k, temp.get(idx++));
-                for (int k = 0; k <= end; k++) cycle.set(k, temp.get(idx++));
-            }
-        }
+        int offset = after - from;
+        if (offset < 0) offset += tour.size;
+        return offset >= length && offset < tour.size - 1;
     }
 
-    protected void applyInterMove(Instance instance, List<Node> selectedNodes, List<Integer> cycle,
-                                Set<Integer> selectedIds, int selectedNodeId, int nonSelectedNodeId) {
-        // Find position in cycle
-        int pos = cycle.indexOf(selectedNodeId);
+    protected int calculateInterDelta(Instance instance, Tour tour, int selectedNodeId, int nonSelectedNodeId) {
+        if (!tour.contains(selectedNodeId)) return Integer.MAX_VALUE;
 
-        // Update cycle
-        cycle.set(pos, nonSelectedNodeId);
+        int prev = tour.pred(selectedNodeId);
+        int next = tour.succ(selectedNodeId);
 
-        // Update selected nodes list
-        Node nonSelectedNode = null;
-        for (Node node : instance.nodes) {
-            if (node.id == nonSelectedNodeId) {
-                nonSelectedNode = node;
-                break;
-            }
-        }
+        // The fused lookups carry the node costs of the entering and leaving node
+        int oldCost = instance.distanceWithCost(prev, selectedNodeId) + instance.distance(selectedNodeId, next);
+        int newCost = instance.distanceWithCost(prev, nonSelectedNodeId) + instance.distance(nonSelectedNodeId, next);
+        return newCost - oldCost;
+    }
 
-        for (int i = 0; i < selectedNodes.size(); i++) {
-            if (selectedNodes.get(i).id == selectedNodeId) {
-                selectedNodes.set(i, nonSelectedNode);
-                break;
-            }
+    protected int calculateInterDistanceDelta(Instance instance, Tour tour, int selectedNodeId, int nonSelectedNodeId) {
+
+        int prev = tour.pred(selectedNodeId);
+        int next = tour.succ(selectedNodeId);
+
+        int oldDistance = instance.distance(prev, selectedNodeId) + instance.distance(selectedNodeId, next);
+        int newDistance = instance.distance(prev, nonSelectedNodeId) + instance.distance(nonSelectedNodeId, next);
+        return newDistance - oldDistance;
+    }
+
+    protected DeltaResult calculateInterDeltaDetailed(Instance instance, Tour tour, int selectedNodeId, int nonSelectedNodeId) {
+        if (!tour.contains(selectedNodeId)) return new DeltaResult(Integer.MAX_VALUE, 0);
+
+        int distanceDelta = calculateInterDistanceDelta(instance, tour, selectedNodeId, nonSelectedNodeId);
+        int costDelta = instance.costs[nonSelectedNodeId] - instance.costs[selectedNodeId];
+        return new DeltaResult(costDelta + distanceDelta, distanceDelta);
+    }
+
+    protected void applyIntraMove(Tour tour, int i, int j, IntraRouteMoveType moveType) {
+        if (moveType == IntraRouteMoveType.NODE_EXCHANGE) {
+            // Swap nodes at positions i and j
+            tour.swap(i, j);
+        } else if (moveType == IntraRouteMoveType.OR_OPT) {
+            // Move the segment starting at i as encoded in j
+            tour.moveSegment(i, OrOptMove.length(j), OrOptMove.targetPos(j), OrOptMove.reversed(j));
+        } else {
+            // Edge exchange: reverse segment between i+1 and j (wraps around if needed)
+            tour.reverse(tour.nextPos(i), j);
         }
+    }
 
-        // Update selectedIds set
-        selectedIds.remove(selectedNodeId);
-        selectedIds.add(nonSelectedNodeId);
+    protected void applyInterMove(Tour tour, int selectedNodeId, int nonSelectedNodeId) {
+        tour.replace(tour.positionOf(selectedNodeId), nonSelectedNodeId);
     }
 
     protected int calculateTotalDistance(Instance instance, List<Integer> cycle) {
@@ -467,7 +463,7 @@ public class LocalSearchSolver extends Solver {
         for (int i = 0; i < cycle.size(); i++) {
             int from = cycle.get(i);
             int to = cycle.get((i + 1) % cycle.size());
-            totalDistance += instance.distanceMatrix[from][to];
+            totalDistance += instance.distance(from, to);
         }
         return totalDistance;
     }
@@ -475,4 +471,5 @@ public class LocalSearchSolver extends Solver {
 
 
 
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,6 @@
+package LocalSearch;
+
+public interface MoveVisitor {
+    void visitIntra(int pos1, int pos2, int delta);
+    void visitInter(int selectedNodeId, int nonSelectedNodeId, int delta);
+}
@@ -1,7 +1,6 @@
 package LocalSearch.MultiStartLocalSearch;
 
 import LocalSearch.IntraRouteMoveType;
-import LocalSearch.StartingSolutionType;
 import Utilities.*;
 
 import java.io.BufferedReader;
@@ -135,53 +134,46 @@ public class MultiStartLocalSearchExperimentRunner extends ExperimentRunner {
 
         // Export all solutions to a single CSV
         String allSolutionsFile = outputDir + "/all_solutions.csv";
-        try (FileWriter writer = new FileWriter(allSolutionsFile)) {
-            writer.append("Run,IterationInRun,GlobalIteration,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle\n");
-
+        try (CsvSink sink = new CsvSink(allSolutionsFile, "Run,IterationInRun,GlobalIteration,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,Cycle")) {
             int globalIteration = 1;
             for (int run = 0; run < results.size(); run++) {
                 List<Solution> runSolutions = results.get(run).solutions;
                 for (int i = 0; i < runSolutions.size(); i++) {
                     Solution sol = runSolutions.get(i);
-                    int objectiveFunction = sol.totalCost + sol.totalDistance;
-                    String cycleStr = sol.cycle.toString()
-                            .replace("[", "")
-                            .replace("]", "")
-                            .replace(", ", "-");
-
-                    writer.append(String.format("%d,%d,%d,%d,%d,%d,%d,%d,\"%s\"\n",
-                            run + 1,
-                            i + 1,
-                            globalIteration++,
-                            sol.totalCost,
-                            sol.selectedNodes.size(),
-                            sol.totalDistance,
-                            objectiveFunction,
-                            sol.totalRunningTime,
-                            cycleStr));
+                    StringBuilder line = new StringBuilder(64 + 4 * sol.cycle.size());
+                    line.append(run + 1).append(',')
+                            .append(i + 1).append(',')
+                            .append(globalIteration++).append(',')
+                            .append(sol.totalCost).append(',')
+                            .append(sol.selectedNodes.size()).append(',')
+                            .append(sol.totalDistance).append(',')
+                            .append(sol.totalCost + sol.totalDistance).append(',')
+                            .append(sol.totalRunningTime).append(',');
+                    sink.writeLine(CsvSink.appendCycle(line, sol.cycle).toString());
                 }
             }
         }
+
+        // Same solutions in run order as a binary archive
+        if (archiveOutput()) {
+            SolutionArchive.write(SolutionArchive.archiveFileFor(allSolutionsFile), allSolutions);
+        }
     }
 
     public ExperimentResult testMethod(Instance instance, String methodName, int numIterations) {
 
         List<Solution> solutions = new ArrayList<>();
 
-        for (int i=0;i<numIterations;i++){
-            Solution solution = null;
-
-            switch (methodName){
-                case "MSLS":
-                    solution = solver.steepestLocalSearch(instance, StartingSolutionType.RANDOM, IntraRouteMoveType.EDGE_EXCHANGE);
-                    break;
-            }
-
-            if (solution != null){
-                System.out.println("Iteration " + (i+1) + ": Cost = " + solution.totalCost + ", Running Time = " + solution.totalRunningTime + "ms");
-                solutions.add(solution);
-            }
+        switch (methodName){
+            case "MSLS":
+                // All starts run in parallel, results come back in start order
+                solutions = solver.multiStartLocalSearch(instance, numIterations, IntraRouteMoveType.EDGE_EXCHANGE);
+                break;
+        }
 
+        for (int i = 0; i < solutions.size(); i++) {
+            Solution solution = solutions.get(i);
+            System.out.println("Iteration " + (i+1) + ": Cost = " + solution.totalCost + ", Running Time = " + solution.totalRunningTime + "ms");
         }
 
         return experimentStatsCalculations(instance, methodName, solutions);
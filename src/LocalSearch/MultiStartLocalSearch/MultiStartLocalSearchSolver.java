@@ -1,22 +1,128 @@
 package LocalSearch.MultiStartLocalSearch;
 
-import LocalSearch.DeltaResult;
 import LocalSearch.IntraRouteMoveType;
 import LocalSearch.LocalSearchSolver;
-import LocalSearch.StartingSolutionType;
+import Utilities.Deadline;
 import Utilities.Instance;
-import Utilities.Node;
 import Utilities.Solution;
+import Utilities.Tour;
 
 import java.util.*;
-//import java.util.stream.Node;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MultiStartLocalSearchSolver extends LocalSearchSolver {
 
-    MultiStartLocalSearchSolver(){
+    private final ForkJoinPool pool;
 
+    // Gives every multi-start run its base seed, start i of a run is seeded with base + i * golden gamma
+    private final Random seeds;
+
+    // Best local optimum of the current multi-start run, updated with CAS by the workers
+    private final AtomicReference<Solution> bestSolution = new AtomicReference<>();
+
+    // Each pool thread gets its own solver (with its own Random, reseeded per start) and scratch tour
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    public MultiStartLocalSearchSolver(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MultiStartLocalSearchSolver(long seed){
+        this(ForkJoinPool.commonPool(), seed);
+    }
+
+    public MultiStartLocalSearchSolver(ForkJoinPool pool){
+        this(pool, new Random().nextLong());
+    }
+
+    // The same seed gives the same starts, and so the same local optima, whatever the pool size
+    public MultiStartLocalSearchSolver(ForkJoinPool pool, long seed){
+        this.pool = pool;
+        this.seeds = new Random(seed);
+    }
+
+    // Runs numStarts independent steepest local searches from random solutions on the pool.
+    // Returns the local optima in start order; the best one is available through getBestSolution().
+    public List<Solution> multiStartLocalSearch(Instance instance, int numStarts, IntraRouteMoveType intraRouteMoveType) {
+        bestSolution.set(null);
+
+        long baseSeed = seeds.nextLong();
+        Solution[] results = new Solution[numStarts];
+        pool.invoke(new StartsTask(instance, intraRouteMoveType, baseSeed, results, 0, numStarts));
+
+        return new ArrayList<>(Arrays.asList(results));
     }
 
+    public Solution getBestSolution() {
+        return bestSolution.get();
+    }
+
+    private Solution runSingleStart(Instance instance, IntraRouteMoveType intraRouteMoveType, long seed) {
+        Worker worker = workers.get();
+        if (worker.tour == null || worker.tour.position.length != instance.size) {
+            worker.tour = new Tour(instance.size);
+        }
 
+        long start = System.nanoTime();
+        worker.random.setSeed(seed);
+        Solution startingSolution = worker.solver.generateRandomSolution(instance);
+        Solution result = worker.solver.steepestLocalSearch(instance, startingSolution, intraRouteMoveType, worker.tour);
+        result.totalRunningTime = Deadline.millisSince(start);
+
+        offerBest(result);
+        return result;
+    }
 
+    private void offerBest(Solution candidate) {
+        Solution current;
+        do {
+            current = bestSolution.get();
+            if (current != null && current.totalCost <= candidate.totalCost) {
+                return;
+            }
+        } while (!bestSolution.compareAndSet(current, candidate));
+    }
+
+    private static class Worker {
+        final Random random = new Random();
+        final LocalSearchSolver solver = new LocalSearchSolver(random);
+        Tour tour;
+    }
+
+    private class StartsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Instance instance;
+        private final IntraRouteMoveType intraRouteMoveType;
+        private final long baseSeed;
+        private final Solution[] results;
+        private final int from;
+        private final int to;
+
+        StartsTask(Instance instance, IntraRouteMoveType intraRouteMoveType, long baseSeed, Solution[] results, int from, int to) {
+            this.instance = instance;
+            this.intraRouteMoveType = intraRouteMoveType;
+            this.baseSeed = baseSeed;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            // A single LS start is already coarse enough to be one task
+            if (to - from <= 1) {
+                if (from < to) {
+                    results[from] = runSingleStart(instance, intraRouteMoveType, baseSeed + from * 0x9E3779B97F4A7C15L);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new StartsTask(instance, intraRouteMoveType, baseSeed, results, from, mid),
+                    new StartsTask(instance, intraRouteMoveType, baseSeed, results, mid, to));
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package LocalSearch;
+
+// An Or-opt move is passed around as an intra move (pos1, pos2): pos1 is the position of the first node
+// of the segment and pos2 packs the target position, the segment length and the direction. The segment
+// is reinserted between the node at the target position and its successor.
+public class OrOptMove {
+    public static final int MAX_SEGMENT_LENGTH = 3;
+
+    public static int encode(int targetPos, int length, boolean reversed) {
+        return targetPos * 8 + (length - 1) * 2 + (reversed ? 1 : 0);
+    }
+
+    public static int targetPos(int code) {
+        return code / 8;
+    }
+
+    public static int length(int code) {
+        return (code % 8) / 2 + 1;
+    }
+
+    public static boolean reversed(int code) {
+        return (code & 1) == 1;
+    }
+}
@@ -0,0 +1,62 @@
+package Utilities;
+
+import java.util.Arrays;
+
+// The k nearest nodes of every node by distance + cost of the other node, stored flat:
+// the candidates of node id are neighbors[id * k] .. neighbors[id * k + k - 1], nearest first.
+// Dense instances sort all other nodes (O(n^2 log n)), SPARSE ones query a SpatialGrid with the same result.
+public class CandidateLists {
+    public final int k;
+    public final int[] neighbors;
+    // Reverse lists: the nodes that have id among their candidates are holders[holderStart[id]] .. holders[holderStart[id + 1] - 1]
+    public final int[] holderStart;
+    public final int[] holders;
+
+    public CandidateLists(Instance instance, int k) {
+        int n = instance.nodes.size();
+        this.k = Math.max(0, Math.min(k, n - 1));
+        this.neighbors = new int[n * this.k];
+
+        // Without a matrix every list comes from the grid, which skips the far away cells
+        if (instance.layout == MatrixLayout.SPARSE) {
+            SpatialGrid grid = new SpatialGrid(instance);
+            for (int id = 0; id < n; id++) {
+                grid.nearest(id, this.k, neighbors, id * this.k);
+            }
+        } else {
+            sortAll(instance, n);
+        }
+
+        // Counting sort of the (candidate, node) pairs by candidate
+        this.holderStart = new int[n + 1];
+        this.holders = new int[neighbors.length];
+        for (int neighbor : neighbors) {
+            holderStart[neighbor + 1]++;
+        }
+        for (int id = 0; id < n; id++) {
+            holderStart[id + 1] += holderStart[id];
+        }
+        int[] fill = Arrays.copyOf(holderStart, n);
+        for (int c = 0; c < neighbors.length; c++) {
+            holders[fill[neighbors[c]]++] = c / this.k;
+        }
+    }
+
+    private void sortAll(Instance instance, int n) {
+        // (metric, id) packed in a long so a primitive sort orders by metric and then by id
+        long[] keys = new long[n - 1];
+        for (int id = 0; id < n; id++) {
+            int count = 0;
+            for (int other = 0; other < n; other++) {
+                if (other == id) continue;
+                long metric = instance.distanceWithCost(id, other);
+                keys[count++] = (metric << 32) | other;
+            }
+            Arrays.sort(keys, 0, count);
+
+            for (int i = 0; i < this.k; i++) {
+                neighbors[id * this.k + i] = (int) keys[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package Utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Memoized results of the deterministic greedy constructors of one instance, keyed by
+// (method, start node, weights). Callers get a copy, so cached solutions are never modified.
+// Hits keep the running time of the construction that produced them, so time columns of a warm cache still
+// measure construction; hits() tells how many lookups were served from the cache.
+public class ConstructionCache {
+
+    // Bump when a cached constructor or the line format changes, store files of older versions are ignored
+    private static final int VERSION = 1;
+    private static final String HEADER = "Key,TotalCost,TotalDistance,TotalRunningTime,Cycle";
+
+    private final Instance instance;
+    private final Map<String, Solution> solutions = new ConcurrentHashMap<>();
+    private CsvSink store = null;
+    private final AtomicInteger hits = new AtomicInteger();
+
+    public ConstructionCache(Instance instance) {
+        this.instance = instance;
+    }
+
+    public Solution get(String methodName, int startNodeId, Supplier<Solution> constructor) {
+        return get(methodName, startNodeId, 0.0, 0.0, constructor);
+    }
+
+    public Solution get(String methodName, int startNodeId, double weightRegret, double weightObjective,
+                        Supplier<Solution> constructor) {
+        String key = methodName + "|" + startNodeId + "|" + weightRegret + "|" + weightObjective;
+
+        Solution solution = solutions.get(key);
+        if (solution == null) {
+            // Two threads may construct the same solution, they get the same result either way
+            solution = constructor.get();
+            if (solutions.putIfAbsent(key, solution) == null) {
+                store(key, solution);
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        return copySolution(solution);
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    // Keeps the cache in <directory>/<instance>_constructions.csv. The first line holds the cache version and the
+    // fingerprint of the instance, entries of a file written by another version or for other nodes are dropped. Valid entries are loaded now and the
+    // file is rewritten with them; new entries are appended as they are constructed, until closeDiskStore.
+    public void enableDiskStore(String directory) throws IOException {
+        closeDiskStore();
+
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File file = new File(dir, instance.name + "_constructions.csv");
+        String fingerprint = fingerprint();
+
+        if (file.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                if (!fingerprint.equals(br.readLine())) {
+                    System.err.println("Construction cache " + file + " was written by another version or for another instance, ignoring it");
+                } else {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        // Key,TotalCost,TotalDistance,TotalRunningTime,Cycle
+                        String[] parts = line.split(",");
+                        if (parts.length != 5 || parts[0].equals("Key")) continue; // header, malformed lines
+
+                        List<Integer> cycle = Utils.transformNodeIDsToCycle(parts[4].replace("\"", ""));
+                        List<Node> selectedNodes = new ArrayList<>(cycle.size());
+                        for (int nodeId : cycle) selectedNodes.add(instance.nodes.get(nodeId));
+
+                        solutions.putIfAbsent(parts[0], new Solution(selectedNodes, cycle,
+                                Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+                    }
+                }
+            }
+        }
+
+        CsvSink sink = new CsvSink(file.getPath(), fingerprint);
+        sink.writeLine(HEADER);
+        synchronized (this) {
+            store = sink;
+            for (Map.Entry<String, Solution> entry : solutions.entrySet()) {
+                store(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Writes the remaining entries and closes the file, the in-memory cache stays
+    public synchronized void closeDiskStore() throws IOException {
+        if (store == null) return;
+        try {
+            store.close();
+        } finally {
+            store = null;
+        }
+    }
+
+    // constructions v<version>,<nodes>,<hash of the coordinates and costs>
+    private String fingerprint() {
+        long hash = instance.size;
+        for (int i = 0; i < instance.size; i++) {
+            hash = hash * 0x100000001B3L + instance.xs[i];
+            hash = hash * 0x100000001B3L + instance.ys[i];
+            hash = hash * 0x100000001B3L + instance.costs[i];
+        }
+        return "constructions v" + VERSION + "," + instance.size + "," + Long.toHexString(hash);
+    }
+
+    private synchronized void store(String key, Solution solution) {
+        if (store == null) return;
+
+        StringBuilder line = new StringBuilder(48 + 4 * solution.cycle.size());
+        line.append(key).append(',')
+                .append(solution.totalCost).append(',')
+                .append(solution.totalDistance).append(',')
+                .append(solution.totalRunningTime).append(',');
+        try {
+            store.writeLine(CsvSink.appendCycle(line, solution.cycle).toString());
+        } catch (IOException e) {
+            System.err.println("Error writing construction cache: " + e.getMessage());
+        }
+    }
+
+    private Solution copySolution(Solution solution) {
+        Solution copy = new Solution(new ArrayList<>(solution.selectedNodes), new ArrayList<>(solution.cycle),
+                solution.totalCost, solution.totalDistance, solution.totalRunningTime);
+        copy.iterations = solution.iterations;
+        return copy;
+    }
+}
@@ -0,0 +1,136 @@
+package Utilities;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// CSV file written line by line on a background thread. Producers hand over finished lines through a
+// bounded queue (and block when the writer falls behind), the writer thread copies them into a large
+// buffer that goes to the file channel when full. Lines are built with StringBuilder, numbers are
+// formatted by the append helpers below instead of String.format.
+// Close the sink (try-with-resources) to write the remaining lines; write errors are rethrown there.
+public class CsvSink implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String END = new String("END"); // compared by identity
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Thread writer;
+    private volatile IOException error = null;
+    private boolean closed = false;
+
+    public CsvSink(String filename, String header) throws IOException {
+        this.channel = new FileOutputStream(filename).getChannel();
+        this.writer = new Thread(this::drain, "csv-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        writeLine(header);
+    }
+
+    // Thread-safe; lines of one producer keep their order
+    public void writeLine(String line) throws IOException {
+        if (error != null) throw error;
+        try {
+            queue.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + line, e);
+        }
+    }
+
+    // SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,TotalIterations,Cycle
+    public void writeSolution(int solutionId, Solution sol) throws IOException {
+        StringBuilder line = new StringBuilder(64 + 4 * sol.cycle.size());
+        line.append(solutionId).append(',')
+                .append(sol.totalCost).append(',')
+                .append(sol.selectedNodes.size()).append(',')
+                .append(sol.totalDistance).append(',')
+                .append(sol.totalCost + sol.totalDistance).append(',')
+                .append(sol.totalRunningTime).append(',')
+                .append(sol.iterations).append(',');
+        appendCycle(line, sol.cycle);
+        writeLine(line.toString());
+    }
+
+    // Quoted node ids joined by '-', as in "12-5-80"
+    public static StringBuilder appendCycle(StringBuilder line, List<Integer> cycle) {
+        line.append('"');
+        for (int i = 0; i < cycle.size(); i++) {
+            if (i > 0) line.append('-');
+            line.append(cycle.get(i).intValue());
+        }
+        return line.append('"');
+    }
+
+    // Same digits as String.format("%.<decimals>f", value): half-up rounding of the shortest decimal form.
+    // Only used for the few averages and similarities per row, the integer columns are appended directly.
+    public static StringBuilder appendDecimal(StringBuilder line, double value, int decimals) {
+        if (!Double.isFinite(value)) return line.append(value); // NaN, Infinity
+
+        String digits = BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString();
+        if (Math.copySign(1.0, value) < 0 && digits.charAt(0) != '-') line.append('-'); // "-0.00" like format
+        return line.append(digits);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the CSV sink", e);
+        } finally {
+            channel.close();
+        }
+        if (error != null) throw error;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                String line = queue.take();
+                if (line == END) break;
+                put(line.getBytes(StandardCharsets.UTF_8));
+                put(NEWLINE);
+            }
+            flush();
+        } catch (IOException e) {
+            error = e;
+            queue.clear(); // producers blocked on a full queue can go on and see the error
+        } catch (InterruptedException e) {
+            error = new IOException("CSV writer interrupted", e);
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) flush();
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
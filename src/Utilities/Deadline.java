@@ -0,0 +1,36 @@
+package Utilities;
+
+// Point in time a solve has to finish by, on the monotonic System.nanoTime clock. Checking it costs one
+// nanoTime call, so searches poll it inside their move loops and stop with the best solution found so far.
+// One deadline can be shared by all threads of a solve.
+public final class Deadline {
+
+    public static final Deadline NONE = new Deadline(0, false);
+
+    private final long endNanos;
+    private final boolean bounded;
+
+    private Deadline(long endNanos, boolean bounded) {
+        this.endNanos = endNanos;
+        this.bounded = bounded;
+    }
+
+    public static Deadline afterMillis(long millis) {
+        return new Deadline(System.nanoTime() + millis * 1_000_000L, true);
+    }
+
+    public boolean expired() {
+        // Compared as a difference, nanoTime values may wrap around
+        return bounded && System.nanoTime() - endNanos >= 0;
+    }
+
+    public long remainingMillis() {
+        if (!bounded) return Long.MAX_VALUE;
+        return Math.max(0, (endNanos - System.nanoTime()) / 1_000_000L);
+    }
+
+    // Running time in ms of something started at startNanos (a System.nanoTime value)
+    public static int millisSince(long startNanos) {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000L);
+    }
+}
@@ -0,0 +1,91 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Edge membership of a cycle as successor/predecessor arrays indexed by node id.
+// Lookups are O(1) and a set can be reloaded for another cycle without allocating.
+public class EdgeSet {
+    private int[] succ;     // succ[id] = next node id on the cycle, -1 if id is not on the cycle
+    private int[] pred;     // pred[id] = previous node id on the cycle, -1 if id is not on the cycle
+    private int[] nodes;    // ids currently loaded, used to clear the arrays on reload
+    private int size;
+
+    public EdgeSet(int numNodes) {
+        this.succ = new int[numNodes];
+        this.pred = new int[numNodes];
+        this.nodes = new int[numNodes];
+        Arrays.fill(succ, -1);
+        Arrays.fill(pred, -1);
+        this.size = 0;
+    }
+
+    public EdgeSet(List<Integer> cycle, int numNodes) {
+        this(numNodes);
+        load(cycle);
+    }
+
+    public void load(List<Integer> cycle) {
+        for (int i = 0; i < size; i++) {
+            succ[nodes[i]] = -1;
+            pred[nodes[i]] = -1;
+        }
+        size = 0;
+
+        int n = cycle.size();
+        for (int i = 0; i < n; i++) {
+            int from = cycle.get(i);
+            int to = cycle.get((i + 1) % n);
+            ensureCapacity(Math.max(from, to) + 1);
+            succ[from] = to;
+            pred[to] = from;
+            nodes[size++] = from;
+        }
+    }
+
+    public boolean containsNode(int nodeId) {
+        return nodeId < succ.length && succ[nodeId] >= 0;
+    }
+
+    // Undirected edge check
+    public boolean containsEdge(int a, int b) {
+        return containsNode(a) && (succ[a] == b || pred[a] == b);
+    }
+
+    public int nodeCount() {
+        return size;
+    }
+
+    // Number of distinct undirected edges; a cycle of two nodes has a single edge
+    public int edgeCount() {
+        return size == 2 ? 1 : size;
+    }
+
+    public int countCommonNodes(EdgeSet other) {
+        int common = 0;
+        for (int i = 0; i < size; i++) {
+            if (other.containsNode(nodes[i])) common++;
+        }
+        return common;
+    }
+
+    public int countCommonEdges(EdgeSet other) {
+        int common = 0;
+        int edges = edgeCount();
+        for (int i = 0; i < edges; i++) {
+            if (other.containsEdge(nodes[i], succ[nodes[i]])) common++;
+        }
+        return common;
+    }
+
+    private void ensureCapacity(int numNodes) {
+        if (numNodes <= succ.length) return;
+        int oldLength = succ.length;
+        int newLength = Math.max(numNodes, oldLength * 2);
+        succ = Arrays.copyOf(succ, newLength);
+        pred = Arrays.copyOf(pred, newLength);
+        nodes = Arrays.copyOf(nodes, newLength);
+        Arrays.fill(succ, oldLength, newLength, -1);
+        Arrays.fill(pred, oldLength, newLength, -1);
+    }
+}
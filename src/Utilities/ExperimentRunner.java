@@ -1,85 +1,221 @@
 package Utilities;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public abstract class ExperimentRunner {
 
+    private static final String SOLUTIONS_HEADER =
+            "SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,TotalIterations,Cycle";
 
+    private int numThreads = 1;
+    private Long seed = null;
+    private String streamDir = null;
+    private boolean writeArchives = false;
+    private final Set<String> streamedFiles = new HashSet<>();
 
     public ExperimentRunner() {
 
     }
 
+    // Opt-in parallel mode: iterations of testMethod are spread over numThreads workers
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    // Fixes the seed of every iteration so that results don't depend on how iterations are scheduled
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Opt-in streaming: every solution is written to <outputDir>/<instance>_<method>_solutions.csv as soon as
+    // its iteration is done, exportResults then leaves these files as they are
+    public void setStreamingOutput(String outputDir) {
+        this.streamDir = outputDir;
+    }
+
+    // Opt-in: solutions are also written to a binary archive (SolutionArchive) next to every solutions CSV
+    public void setArchiveOutput(boolean writeArchives) {
+        this.writeArchives = writeArchives;
+    }
+
+    protected boolean archiveOutput() {
+        return writeArchives;
+    }
+
+    @FunctionalInterface
+    protected interface IterationTask<S> {
+        Solution run(S solver, int iteration, Random random);
+    }
+
+    // Runs task for every iteration and returns the non-null solutions in iteration order.
+    // By default iterations run one after another on the runner's own solver. With more threads or a seed,
+    // every worker builds its own solver around its own Random, which is re-seeded before each iteration.
+    protected <S> List<Solution> runIterations(Instance instance, String methodName, int numIterations, S solver,
+                                               Function<Random, S> solverFactory, IterationTask<S> task) {
+        List<Solution> solutions = new ArrayList<>();
+
+        try (SolutionStream stream = openStream(instance, methodName, numIterations)) {
+            if (numThreads == 1 && seed == null) {
+                Random random = new Random();
+                for (int i = 0; i < numIterations; i++) {
+                    Solution solution = task.run(solver, i, random);
+                    stream.done(i, solution);
+                    if (solution != null) {
+                        solutions.add(solution);
+                    }
+                }
+                return solutions;
+            }
+
+            long baseSeed = (seed != null) ? seed : new Random().nextLong();
+            Solution[] results = new Solution[numIterations];
+            AtomicInteger nextIteration = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < numThreads; t++) {
+                    workers.add(executor.submit(() -> {
+                        Random random = new Random();
+                        S workerSolver = solverFactory.apply(random);
+
+                        int i;
+                        while ((i = nextIteration.getAndIncrement()) < numIterations) {
+                            random.setSeed(baseSeed + i * 0x9E3779B97F4A7C15L);
+                            results[i] = task.run(workerSolver, i, random);
+                            stream.done(i, results[i]);
+                        }
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdown();
+            }
+
+            for (Solution solution : results) {
+                if (solution != null) {
+                    solutions.add(solution);
+                }
+            }
+            return solutions;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SolutionStream openStream(Instance instance, String methodName, int numIterations) throws IOException {
+        if (streamDir == null) return new SolutionStream(null, null, numIterations);
+
+        String filename = solutionsFile(streamDir, instance.name, methodName);
+        streamedFiles.add(filename);
+        SolutionArchiveWriter archive = writeArchives
+                ? SolutionArchive.create(SolutionArchive.archiveFileFor(filename), instance.nodes.size(), SolutionArchive.DELTA_VARINT)
+                : null;
+        return new SolutionStream(new CsvSink(filename, SOLUTIONS_HEADER), archive, numIterations);
+    }
+
+    // Passes finished iterations to the sink in iteration order, whichever worker finishes them. Solution ids
+    // count the non-null solutions, as in exportResults.
+    private static class SolutionStream implements AutoCloseable {
+        private final CsvSink sink;
+        private final SolutionArchiveWriter archive;
+        private final Solution[] pending;
+        private final boolean[] finished;
+        private int nextIteration = 0;
+        private int nextSolutionId = 1;
+
+        SolutionStream(CsvSink sink, SolutionArchiveWriter archive, int numIterations) {
+            this.sink = sink;
+            this.archive = archive;
+            this.pending = (sink != null) ? new Solution[numIterations] : null;
+            this.finished = (sink != null) ? new boolean[numIterations] : null;
+        }
+
+        synchronized void done(int iteration, Solution solution) {
+            if (sink == null) return;
+            pending[iteration] = solution;
+            finished[iteration] = true;
+            try {
+                while (nextIteration < finished.length && finished[nextIteration]) {
+                    Solution next = pending[nextIteration];
+                    pending[nextIteration++] = null;
+                    if (next == null) continue;
+                    sink.writeSolution(nextSolutionId++, next);
+                    if (archive != null) archive.append(next);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (sink != null) sink.close();
+            if (archive != null) archive.close();
+        }
+    }
+
     public void exportResults(List<ExperimentResult> results, String outputDir) throws IOException {
         // Export summary CSV
         exportSummaryCSV(results, outputDir + "/experiment_summary.csv");
 
-        // Export detailed solutions for each method
+        // Export detailed solutions for each method, unless they were streamed there already
         for (ExperimentResult result : results) {
-            String filename = String.format("%s/%s_%s_solutions.csv",
-                    outputDir,
-                    result.instanceName,
-                    result.methodName);
-            exportSolutionsCSV(result, filename);
+            String filename = solutionsFile(outputDir, result.instanceName, result.methodName);
+            if (!streamedFiles.contains(filename)) {
+                exportSolutionsCSV(result, filename);
+                if (writeArchives) {
+                    SolutionArchive.write(SolutionArchive.archiveFileFor(filename), result.solutions);
+                }
+            }
         }
     }
 
-    private void exportSummaryCSV(List<ExperimentResult> results, String filename) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            // Write header
-            writer.append("Instance,Method,MinCost,MaxCost,AvgCost,MinTime,MaxTime,AvgTime,MinIterations,MaxIterations,AvgIterations,NumSolutions,BestSolutionID");
-            writer.append(System.lineSeparator());
+    protected static String solutionsFile(String outputDir, String instanceName, String methodName) {
+        return outputDir + "/" + instanceName + "_" + methodName + "_solutions.csv";
+    }
 
-            // Write data
+    private void exportSummaryCSV(List<ExperimentResult> results, String filename) throws IOException {
+        try (CsvSink sink = new CsvSink(filename, "Instance,Method,MinCost,MaxCost,AvgCost,MinTime,MaxTime,AvgTime,MinIterations,MaxIterations,AvgIterations,NumSolutions,BestSolutionID")) {
             for (ExperimentResult result : results) {
-                writer.append(String.format("%s,%s,%d,%d,%.2f,%d,%d,%.2f,%d,%d,%.2f,%d,%d",
-                        result.instanceName,
-                        result.methodName,
-                        result.minCost,
-                        result.maxCost,
-                        result.avgCost,
-                        result.minRunningTime,
-                        result.maxRunningTime,
-                        result.avgRunningTime,
-                        result.minIterations,
-                        result.maxIterations,
-                        result.avgIterations,
-                        result.numSolutions,
-                        result.bestSolutionId));
-                writer.append(System.lineSeparator());
+                StringBuilder line = new StringBuilder(128);
+                line.append(result.instanceName).append(',')
+                        .append(result.methodName).append(',')
+                        .append(result.minCost).append(',')
+                        .append(result.maxCost).append(',');
+                CsvSink.appendDecimal(line, result.avgCost, 2).append(',')
+                        .append(result.minRunningTime).append(',')
+                        .append(result.maxRunningTime).append(',');
+                CsvSink.appendDecimal(line, result.avgRunningTime, 2).append(',')
+                        .append(result.minIterations).append(',')
+                        .append(result.maxIterations).append(',');
+                CsvSink.appendDecimal(line, result.avgIterations, 2).append(',')
+                        .append(result.numSolutions).append(',')
+                        .append(result.bestSolutionId);
+                sink.writeLine(line.toString());
             }
         }
     }
 
-
     private void exportSolutionsCSV(ExperimentResult result, String filename) throws IOException {
-        try (FileWriter writer = new FileWriter(filename)) {
-            // Write header
-            writer.append("SolutionID,TotalCost,NumNodes,TotalDistance,ObjectiveFunction,TotalRunningTime,TotalIterations,Cycle\n");
-
-            // Write each solution
+        try (CsvSink sink = new CsvSink(filename, SOLUTIONS_HEADER)) {
             for (int i = 0; i < result.solutions.size(); i++) {
-                Solution sol = result.solutions.get(i);
-
-                int objectiveFunction = sol.totalCost + sol.totalDistance;
-
-                // Convert cycle to string
-                String cycleStr = sol.cycle.toString()
-                        .replace("[", "")
-                        .replace("]", "")
-                        .replace(", ", "-");
-
-                writer.append(String.format("%d,%d,%d,%d,%d,%d,%d,\"%s\"\n",
-                        i + 1,
-                        sol.totalCost,
-                        sol.selectedNodes.size(),
-                        sol.totalDistance,
-                        objectiveFunction,
-                        sol.totalRunningTime,
-                        sol.iterations,
-                        cycleStr));
+                sink.writeSolution(i + 1, result.solutions.get(i));
             }
         }
     }
@@ -0,0 +1,119 @@
+package Utilities;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Best and second best insertion cost of every unselected node into a cycle, kept up to date while nodes
+// are inserted. An insertion is identified by the node starting the edge it splits, -1 if there is none.
+// After an insertion only the two new edges are offered to each candidate; a candidate is rescanned against
+// the whole cycle only when the split edge was one of its two best.
+public class InsertionCache {
+    public final int[] bestCost;     // indexed by node id, Integer.MAX_VALUE if there is no edge
+    public final int[] secondCost;
+    public final int[] bestFrom;
+    public final int[] secondFrom;
+    public final int[] unselected;   // unselected ids in ascending order, only the first numUnselected are valid
+    public int numUnselected;
+
+    private final Instance instance;
+    private final List<Integer> cycle;
+    private final int[] position;    // position[id] = index in cycle, -1 if not selected
+
+    // The cache inserts into the given cycle, which must not be changed elsewhere while the cache is in use
+    public InsertionCache(Instance instance, List<Integer> cycle) {
+        int numNodes = instance.nodes.size();
+        this.instance = instance;
+        this.cycle = cycle;
+        this.bestCost = new int[numNodes];
+        this.secondCost = new int[numNodes];
+        this.bestFrom = new int[numNodes];
+        this.secondFrom = new int[numNodes];
+        this.unselected = new int[numNodes];
+        this.position = new int[numNodes];
+
+        Arrays.fill(position, -1);
+        for (int i = 0; i < cycle.size(); i++) {
+            position[cycle.get(i)] = i;
+        }
+
+        numUnselected = 0;
+        for (int i = 0; i < numNodes; i++) {
+            if (position[i] < 0) unselected[numUnselected++] = i;
+        }
+        for (int k = 0; k < numUnselected; k++) {
+            rescan(unselected[k]);
+        }
+    }
+
+    // Inserts unselected[k] at its best position and returns the index it got in the cycle
+    public int insert(int k) {
+        int nodeId = unselected[k];
+        System.arraycopy(unselected, k + 1, unselected, k, numUnselected - k - 1);
+        numUnselected--;
+
+        int from = bestFrom[nodeId];
+        int insertPos = (from < 0) ? 0 : position[from] + 1;
+        cycle.add(insertPos, nodeId);
+        for (int i = insertPos; i < cycle.size(); i++) {
+            position[cycle.get(i)] = i;
+        }
+
+        // Edge (from, to) was replaced by (from, nodeId) and (nodeId, to)
+        int to = cycle.get((insertPos + 1) % cycle.size());
+        for (int j = 0; j < numUnselected; j++) {
+            int candidateId = unselected[j];
+            if (from < 0 || bestFrom[candidateId] == from || secondFrom[candidateId] == from) {
+                rescan(candidateId);
+            } else {
+                offer(candidateId, from, nodeId);
+                offer(candidateId, nodeId, to);
+            }
+        }
+        return insertPos;
+    }
+
+    private void rescan(int candidateId) {
+        bestCost[candidateId] = Integer.MAX_VALUE;
+        secondCost[candidateId] = Integer.MAX_VALUE;
+        bestFrom[candidateId] = -1;
+        secondFrom[candidateId] = -1;
+
+        for (int i = 0; i < cycle.size(); i++) {
+            int u = cycle.get(i);
+            int v = cycle.get((i + 1) % cycle.size());
+            int addedCost = insertionCost(candidateId, u, v);
+
+            if (addedCost < bestCost[candidateId]) {
+                secondCost[candidateId] = bestCost[candidateId];
+                secondFrom[candidateId] = bestFrom[candidateId];
+                bestCost[candidateId] = addedCost;
+                bestFrom[candidateId] = u;
+            } else if (addedCost < secondCost[candidateId]) {
+                secondCost[candidateId] = addedCost;
+                secondFrom[candidateId] = u;
+            }
+        }
+    }
+
+    // Equal costs keep the edge that comes first in the cycle, as a full rescan would
+    private void offer(int candidateId, int u, int v) {
+        int addedCost = insertionCost(candidateId, u, v);
+
+        if (addedCost < bestCost[candidateId]
+                || (addedCost == bestCost[candidateId] && position[u] < position[bestFrom[candidateId]])) {
+            secondCost[candidateId] = bestCost[candidateId];
+            secondFrom[candidateId] = bestFrom[candidateId];
+            bestCost[candidateId] = addedCost;
+            bestFrom[candidateId] = u;
+        } else if (addedCost < secondCost[candidateId]) {
+            secondCost[candidateId] = addedCost;
+            secondFrom[candidateId] = u;
+        }
+    }
+
+    private int insertionCost(int candidateId, int u, int v) {
+        return instance.distanceWithCost(u, candidateId)
+                + instance.distance(candidateId, v)
+                - instance.distance(u, v);
+    }
+}
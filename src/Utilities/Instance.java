@@ -1,24 +1,112 @@
 package Utilities;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Instance {
 
     public String name;
     public List<Node> nodes;
-    public int[][] distanceMatrix;
-    int size;
-    int[] costs;
+    public int size;
+    public MatrixLayout layout;
+    // Row-major n x n arrays, entry i * size + j: FLAT fills distances, COMPACT compactDistances, SPARSE
+    // (instances of tens of thousands of nodes) neither of them. Read them through distance() and distanceWithCost().
+    public int[] distances;
+    public char[] compactDistances;
+    // Node attributes indexed by node id
+    public int[] costs;
+    public int[] xs;
+    public int[] ys;
+    // Results of the deterministic greedy constructors, shared by every solver working on this instance
+    public final ConstructionCache constructions = new ConstructionCache(this);
+    private final Map<Integer, CandidateLists> candidateLists = new ConcurrentHashMap<>();
 
     public Instance(String filePath,String name) {
+        this(filePath, name, MatrixLayout.FLAT);
+    }
+
+    public Instance(String filePath, String name, MatrixLayout layout) {
+        this(name, Utils.readCSV(filePath), layout);
+    }
+
+    // Node ids must be 0 .. nodes.size() - 1 in list order
+    public Instance(String name, List<Node> nodes, MatrixLayout layout) {
         this.name = name;
-        this.nodes = Utils.readCSV(filePath);
-        this.distanceMatrix = Utils.calculateDistanceMatrix(this.nodes);
+        this.nodes = nodes;
         this.size = nodes.size();
         this.costs = new int[size];
+        this.xs = new int[size];
+        this.ys = new int[size];
         for (int i = 0; i < size; i++) {
-            costs[i] = nodes.get(i).cost;
+            Node node = nodes.get(i);
+            costs[i] = node.cost;
+            xs[i] = node.x;
+            ys[i] = node.y;
+        }
+        buildMatrix(layout);
+    }
 
+    public int distance(int i, int j) {
+        if (distances != null) return distances[i * size + j];
+        if (compactDistances != null) return compactDistances[i * size + j];
+        return Utils.calculateDistance(xs[i], ys[i], xs[j], ys[j]);
+    }
+
+    // Distance from i to j plus the cost of j: what entering j after i adds to the objective
+    public int distanceWithCost(int i, int j) {
+        return distance(i, j) + costs[j];
+    }
+
+    // Every pair is computed once and mirrored, straight into the array of the layout. COMPACT falls back to
+    // FLAT when the diagonal of the bounding box (the largest possible distance) doesn't fit a char, and both
+    // fall back to SPARSE when n * n entries can't be indexed by an int.
+    private void buildMatrix(MatrixLayout requested) {
+        if (requested == MatrixLayout.SPARSE || (long) size * size > Integer.MAX_VALUE) {
+            this.layout = MatrixLayout.SPARSE;
+            return;
         }
+
+        if (requested == MatrixLayout.COMPACT && maxDistanceBound() <= Character.MAX_VALUE) {
+            this.layout = MatrixLayout.COMPACT;
+            this.compactDistances = new char[size * size];
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    char distance = (char) Utils.calculateDistance(xs[i], ys[i], xs[j], ys[j]);
+                    compactDistances[i * size + j] = distance;
+                    compactDistances[j * size + i] = distance;
+                }
+            }
+            return;
+        }
+
+        this.layout = MatrixLayout.FLAT;
+        this.distances = new int[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                int distance = Utils.calculateDistance(xs[i], ys[i], xs[j], ys[j]);
+                distances[i * size + j] = distance;
+                distances[j * size + i] = distance;
+            }
+        }
+    }
+
+    // Rounding is monotone, so no rounded distance between two nodes exceeds the rounded diagonal
+    private int maxDistanceBound() {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (size == 0) return 0;
+        return Utils.calculateDistance(minX, minY, maxX, maxY);
+    }
+
+    // Built on first use for each k and shared by every solver working on this instance
+    public CandidateLists candidateLists(int k) {
+        return candidateLists.computeIfAbsent(k, key -> new CandidateLists(this, key));
     }
 }
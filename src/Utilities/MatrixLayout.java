@@ -0,0 +1,8 @@
+package Utilities;
+
+// How an Instance stores its distances
+public enum MatrixLayout {
+    FLAT,   // row-major int distances, distanceWithCost adds the cost of the target node
+    COMPACT, // row-major char distances only, half the memory of FLAT (needs distances <= 65535)
+    SPARSE   // no matrix, distances computed from the coordinates and candidate lists from a SpatialGrid
+}
@@ -5,10 +5,10 @@ public class Node {
     public int x;
     public int y;
     public int cost;
-     static int IDS = 0;
 
-    public Node(int x, int y, int cost) {
-        this.id= IDS++;
+    // Ids index the instance's distance matrix, so every instance numbers its nodes from 0
+    public Node(int id, int x, int y, int cost) {
+        this.id = id;
         this.x = x;
         this.y = y;
         this.cost = cost;
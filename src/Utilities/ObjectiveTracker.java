@@ -0,0 +1,95 @@
+package Utilities;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Objective (total cost and distance) of one tour, updated from move deltas in O(1) instead of being
+// recomputed after every move. Distances and node costs are integers, so the running sums are exact.
+// Verification mode (-Dobjective.verify=N or setVerifyInterval(N)) recomputes the objective from the tour
+// every N updates and at every checkpoint, reports any drift on stderr and continues from the true values.
+public class ObjectiveTracker {
+
+    private static volatile int verifyInterval = Integer.getInteger("objective.verify", 0);
+    private static final AtomicLong numDrifts = new AtomicLong();
+
+    public int cost;
+    public int distance;
+
+    private final Instance instance;
+    private final String owner;        // shown in drift reports
+    private final Tour tour;           // the tour or the cycle the objective belongs to, one of them is null
+    private final List<Integer> cycle;
+    private int numUpdates;
+
+    public ObjectiveTracker(Instance instance, String owner, Tour tour, int cost, int distance) {
+        this(instance, owner, tour, null, cost, distance);
+    }
+
+    public ObjectiveTracker(Instance instance, String owner, List<Integer> cycle, int cost, int distance) {
+        this(instance, owner, null, cycle, cost, distance);
+    }
+
+    private ObjectiveTracker(Instance instance, String owner, Tour tour, List<Integer> cycle, int cost, int distance) {
+        this.instance = instance;
+        this.owner = owner;
+        this.tour = tour;
+        this.cycle = cycle;
+        this.cost = cost;
+        this.distance = distance;
+    }
+
+    // 0 turns verification off
+    public static void setVerifyInterval(int interval) {
+        verifyInterval = interval;
+    }
+
+    public static long driftCount() {
+        return numDrifts.get();
+    }
+
+    // Moves within the tour only change the distance
+    public void applyIntra(int distanceDelta) {
+        apply(distanceDelta, distanceDelta);
+    }
+
+    public void apply(int costDelta, int distanceDelta) {
+        cost += costDelta;
+        distance += distanceDelta;
+
+        int interval = verifyInterval;
+        if (interval > 0 && ++numUpdates % interval == 0) {
+            verify();
+        }
+    }
+
+    // Verifies the objective when verification is on, e.g. before a result leaves the solver
+    public void checkpoint() {
+        if (verifyInterval > 0) {
+            verify();
+        }
+    }
+
+    private void verify() {
+        int trueDistance = 0;
+        int trueCost = 0;
+        if (tour != null) {
+            trueDistance = tour.totalDistance(instance);
+            for (int i = 0; i < tour.size; i++) trueCost += instance.costs[tour.get(i)];
+        } else {
+            for (int i = 0; i < cycle.size(); i++) {
+                int u = cycle.get(i);
+                trueDistance += instance.distance(u, cycle.get((i + 1) % cycle.size()));
+                trueCost += instance.costs[u];
+            }
+        }
+        trueCost += trueDistance;
+
+        if (trueCost != cost || trueDistance != distance) {
+            numDrifts.incrementAndGet();
+            System.err.printf("Objective drift in %s after %d updates: cost %d (true %d), distance %d (true %d)%n",
+                    owner, numUpdates, cost, trueCost, distance, trueDistance);
+            cost = trueCost;
+            distance = trueDistance;
+        }
+    }
+}
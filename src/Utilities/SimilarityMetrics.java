@@ -1,26 +1,30 @@
 package Utilities;
 
-import java.util.*;
+import java.util.List;
 
 public class SimilarityMetrics {
 
+    // Reused between calls, the global convexity experiment compares every pair of solutions
+    private static final ThreadLocal<EdgeSet[]> SCRATCH =
+            ThreadLocal.withInitial(() -> new EdgeSet[]{new EdgeSet(0), new EdgeSet(0)});
+
     public static double edgeBasedSimilarity(Solution sol1, Solution sol2) {
         if (sol1 == null || sol2 == null || sol1.cycle == null || sol2.cycle == null)
             return 0.0;
 
-        Set<Edge> edges1 = extractEdges(sol1.cycle);
-        Set<Edge> edges2 = extractEdges(sol2.cycle);
-
-        if (edges1.isEmpty() && edges2.isEmpty()) return 1.0;
-        if (edges1.isEmpty() || edges2.isEmpty()) return 0.0;
+        EdgeSet[] scratch = SCRATCH.get();
+        EdgeSet edges1 = scratch[0];
+        EdgeSet edges2 = scratch[1];
+        edges1.load(sol1.cycle.size() < 2 ? List.of() : sol1.cycle);
+        edges2.load(sol2.cycle.size() < 2 ? List.of() : sol2.cycle);
 
-        Set<Edge> intersection = new HashSet<>(edges1);
-        intersection.retainAll(edges2);
+        if (edges1.edgeCount() == 0 && edges2.edgeCount() == 0) return 1.0;
+        if (edges1.edgeCount() == 0 || edges2.edgeCount() == 0) return 0.0;
 
-        Set<Edge> union = new HashSet<>(edges1);
-        union.addAll(edges2);
+        int intersection = edges1.countCommonEdges(edges2);
+        int union = edges1.edgeCount() + edges2.edgeCount() - intersection;
 
-        return (double) intersection.size() / union.size();
+        return (double) intersection / union;
     }
 
 
@@ -28,38 +32,18 @@ public class SimilarityMetrics {
         if (sol1 == null || sol2 == null || sol1.cycle == null || sol2.cycle == null)
             return 0.0;
 
-        Set<Integer> nodes1 = new HashSet<>(sol1.cycle);
-        Set<Integer> nodes2 = new HashSet<>(sol2.cycle);
-
-        if (nodes1.isEmpty() && nodes2.isEmpty()) return 1.0;
-        if (nodes1.isEmpty() || nodes2.isEmpty()) return 0.0;
-
-        Set<Integer> intersection = new HashSet<>(nodes1);
-        intersection.retainAll(nodes2);
-
-        Set<Integer> union = new HashSet<>(nodes1);
-        union.addAll(nodes2);
-
-        return (double) intersection.size() / union.size();
-    }
-
+        EdgeSet[] scratch = SCRATCH.get();
+        EdgeSet nodes1 = scratch[0];
+        EdgeSet nodes2 = scratch[1];
+        nodes1.load(sol1.cycle);
+        nodes2.load(sol2.cycle);
 
-    private static Set<Edge> extractEdges(List<Integer> cycle) {
-        Set<Edge> edges = new HashSet<>();
-        if (cycle.size() < 2) return edges;
+        if (nodes1.nodeCount() == 0 && nodes2.nodeCount() == 0) return 1.0;
+        if (nodes1.nodeCount() == 0 || nodes2.nodeCount() == 0) return 0.0;
 
-        for (int i = 0; i < cycle.size(); i++) {
-            int a = cycle.get(i);
-            int b = cycle.get((i + 1) % cycle.size());
+        int intersection = nodes1.countCommonNodes(nodes2);
+        int union = nodes1.nodeCount() + nodes2.nodeCount() - intersection;
 
-            edges.add(new Edge(a, b));
-        }
-        return edges;
+        return (double) intersection / union;
     }
-
-
-
-
-
-
 }
@@ -9,6 +9,8 @@ public class Solution {
     public int totalDistance;
     public int totalRunningTime;
     public int iterations;
+    private long tourHash;
+    private List<Integer> hashedCycle; // cycle the cached tourHash was computed for
 
     public Solution(List<Node> selectedNodes, List<Integer> cycle, int totalCost, int totalDistance, int totalRunningTime) {
         this.selectedNodes = selectedNodes;
@@ -19,4 +21,17 @@ public class Solution {
         this.iterations = 0;
     }
 
+    // Rotation- and direction-invariant fingerprint of the cycle, computed on first use and again after cycle
+    // is replaced. Code that edits the cycle list in place must call cycleChanged.
+    public long tourHash() {
+        if (hashedCycle != cycle) {
+            tourHash = TourHash.of(cycle);
+            hashedCycle = cycle;
+        }
+        return tourHash;
+    }
+
+    public void cycleChanged() {
+        hashedCycle = null;
+    }
 }
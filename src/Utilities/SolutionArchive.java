@@ -0,0 +1,191 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read side of the binary solution archive (.ecsa), the file is memory-mapped and records are decoded on demand.
+//
+// Layout, little-endian:
+//   header  magic "ECSA" | version (short) | encoding (short) | nodes in the instance (int) | solution count (int)
+//   record  totalCost | totalDistance | totalRunningTime | iterations | cycle length | payload bytes (ints)
+//           followed by the cycle: PACKED node ids of 2 bytes (4 when the instance has more than 65536 nodes),
+//           or DELTA_VARINT: first id as a varint, then zigzag varints of the differences between neighbours.
+public class SolutionArchive {
+
+    public static final String EXTENSION = ".ecsa";
+    public static final int PACKED = 0;
+    public static final int DELTA_VARINT = 1;
+
+    static final int MAGIC = 0x41534345; // "ECSA" read as a little-endian int
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 24;
+
+    private final MappedByteBuffer buffer;
+    private final int encoding;
+    private final int numNodes;
+    private final int[] offsets; // start of every record
+
+    private SolutionArchive(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a solution archive");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported solution archive version " + buffer.getShort(4));
+        }
+        this.encoding = buffer.getShort(6);
+        this.numNodes = buffer.getInt(8);
+
+        int count = buffer.getInt(12);
+        this.offsets = new int[count];
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            if (offset + RECORD_HEADER_BYTES > buffer.limit()) {
+                throw new IOException("Solution archive is truncated at record " + i);
+            }
+            offsets[i] = offset;
+            offset += RECORD_HEADER_BYTES + buffer.getInt(offset + 20);
+        }
+    }
+
+    public static SolutionArchive open(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new SolutionArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static SolutionArchiveWriter create(String filename, int numNodes, int encoding) throws IOException {
+        return new SolutionArchiveWriter(filename, numNodes, encoding);
+    }
+
+    // numNodes only decides the width of PACKED ids, here it is taken from the largest id in the solutions
+    public static void write(String filename, List<Solution> solutions) throws IOException {
+        int numNodes = 0;
+        for (Solution solution : solutions) {
+            for (int nodeId : solution.cycle) numNodes = Math.max(numNodes, nodeId + 1);
+        }
+
+        try (SolutionArchiveWriter writer = create(filename, numNodes, DELTA_VARINT)) {
+            for (Solution solution : solutions) {
+                writer.append(solution);
+            }
+        }
+    }
+
+    // <name>.csv -> <name>.ecsa
+    public static String archiveFileFor(String csvFilename) {
+        String base = csvFilename.endsWith(".csv") ? csvFilename.substring(0, csvFilename.length() - 4) : csvFilename;
+        return base + EXTENSION;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public int numNodes() {
+        return numNodes;
+    }
+
+    // The fixed fields are read without decoding the cycle
+    public int totalCost(int index) {
+        return buffer.getInt(offsets[index]);
+    }
+
+    public int totalDistance(int index) {
+        return buffer.getInt(offsets[index] + 4);
+    }
+
+    public int totalRunningTime(int index) {
+        return buffer.getInt(offsets[index] + 8);
+    }
+
+    public int iterations(int index) {
+        return buffer.getInt(offsets[index] + 12);
+    }
+
+    // Index of the solution with the lowest total cost, -1 for an empty archive
+    public int bestIndex() {
+        int best = -1;
+        for (int i = 0; i < offsets.length; i++) {
+            if (best < 0 || totalCost(i) < totalCost(best)) best = i;
+        }
+        return best;
+    }
+
+    public int[] cycleArray(int index) {
+        int offset = offsets[index];
+        int length = buffer.getInt(offset + 16);
+        int pos = offset + RECORD_HEADER_BYTES;
+        int[] cycle = new int[length];
+
+        if (encoding == PACKED) {
+            boolean wide = numNodes > 65536;
+            for (int i = 0; i < length; i++) {
+                if (wide) {
+                    cycle[i] = buffer.getInt(pos);
+                    pos += 4;
+                } else {
+                    cycle[i] = buffer.getShort(pos) & 0xFFFF;
+                    pos += 2;
+                }
+            }
+            return cycle;
+        }
+
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            // Varint: 7 bits per byte, lowest first, the high bit marks a following byte
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(pos++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if (i == 0) {
+                previous = value;
+            } else {
+                previous += (value >>> 1) ^ -(value & 1); // zigzag
+            }
+            cycle[i] = previous;
+        }
+        return cycle;
+    }
+
+    public List<Integer> cycle(int index) {
+        int[] ids = cycleArray(index);
+        List<Integer> cycle = new ArrayList<>(ids.length);
+        for (int id : ids) cycle.add(id);
+        return cycle;
+    }
+
+    public Solution solution(int index, Instance instance) {
+        List<Integer> cycle = cycle(index);
+        List<Node> selectedNodes = new ArrayList<>(cycle.size());
+        for (int nodeId : cycle) selectedNodes.add(instance.nodes.get(nodeId));
+
+        Solution solution = new Solution(selectedNodes, cycle, totalCost(index), totalDistance(index), totalRunningTime(index));
+        solution.iterations = iterations(index);
+        return solution;
+    }
+
+    public List<Solution> solutions(Instance instance) {
+        List<Solution> solutions = new ArrayList<>(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            solutions.add(solution(i, instance));
+        }
+        return solutions;
+    }
+}
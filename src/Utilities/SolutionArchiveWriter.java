@@ -0,0 +1,121 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends solutions to a binary solution archive (layout in SolutionArchive). Records go through a large
+// buffer to the file channel, the solution count in the header is filled in on close.
+public class SolutionArchiveWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final int numNodes;
+    private final int encoding;
+    private ByteBuffer buffer = newBuffer(BUFFER_SIZE);
+    private int count = 0;
+    private boolean closed = false;
+
+    SolutionArchiveWriter(String filename, int numNodes, int encoding) throws IOException {
+        if (encoding != SolutionArchive.PACKED && encoding != SolutionArchive.DELTA_VARINT) {
+            throw new IllegalArgumentException("Unknown archive encoding " + encoding);
+        }
+        this.channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.numNodes = numNodes;
+        this.encoding = encoding;
+
+        buffer.putInt(SolutionArchive.MAGIC)
+                .putShort(SolutionArchive.VERSION)
+                .putShort((short) encoding)
+                .putInt(numNodes)
+                .putInt(0); // count, written on close
+    }
+
+    public void append(Solution solution) throws IOException {
+        List<Integer> cycle = solution.cycle;
+        int length = cycle.size();
+
+        // Worst case for the record, a varint takes at most 5 bytes
+        int maxBytes = SolutionArchive.RECORD_HEADER_BYTES + 5 * length;
+        if (buffer.remaining() < maxBytes) {
+            flush();
+            if (buffer.capacity() < maxBytes) buffer = newBuffer(maxBytes);
+        }
+
+        int start = buffer.position();
+        buffer.putInt(solution.totalCost)
+                .putInt(solution.totalDistance)
+                .putInt(solution.totalRunningTime)
+                .putInt(solution.iterations)
+                .putInt(length)
+                .putInt(0); // payload bytes, known once the cycle is written
+        int payloadStart = buffer.position();
+
+        if (encoding == SolutionArchive.PACKED) {
+            boolean wide = numNodes > 65536;
+            for (int i = 0; i < length; i++) {
+                if (wide) buffer.putInt(cycle.get(i));
+                else buffer.putShort((short) cycle.get(i).intValue());
+            }
+        } else {
+            int previous = 0;
+            for (int i = 0; i < length; i++) {
+                int id = cycle.get(i);
+                if (i == 0) {
+                    putVarint(id);
+                } else {
+                    int diff = id - previous;
+                    putVarint((diff << 1) ^ (diff >> 31)); // zigzag
+                }
+                previous = id;
+            }
+        }
+
+        buffer.putInt(start + 20, buffer.position() - payloadStart);
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            ByteBuffer countBytes = newBuffer(4).putInt(count);
+            countBytes.flip();
+            channel.write(countBytes, 12);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,174 @@
+package Utilities;
+
+import java.util.Arrays;
+
+// Uniform grid over the node coordinates, about two nodes per cell, stored as buckets in one array: the
+// nodes of cell c are cellNodes[cellStart[c]] .. cellNodes[cellStart[c + 1] - 1].
+// Answers k-nearest queries by the candidate metric distance + cost of the other node. Cells are visited in
+// rings around the query node and skipped, or the search stopped, once their lower bound (distance to the
+// cell plus the lowest cost in it) can't beat the current k-th best, so results equal a full scan.
+public class SpatialGrid {
+
+    private final Instance instance;
+    private final int minX;
+    private final int minY;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+    private final int[] cellMinCost;
+    private final int minCost;
+
+    public SpatialGrid(Instance instance) {
+        this.instance = instance;
+        int n = instance.size;
+        int[] xs = instance.xs;
+        int[] ys = instance.ys;
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int minCost = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minCost = Math.min(minCost, instance.costs[i]);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.minCost = minCost;
+
+        double width = Math.max(1, (double) maxX - minX);
+        double height = Math.max(1, (double) maxY - minY);
+        this.cellSize = Math.max(1.0, Math.sqrt(width * height * 2.0 / Math.max(1, n)));
+        this.cols = (int) (width / cellSize) + 1;
+        this.rows = (int) (height / cellSize) + 1;
+
+        // Counting sort of the nodes into their cells
+        int numCells = cols * rows;
+        this.cellStart = new int[numCells + 1];
+        this.cellNodes = new int[n];
+        this.cellMinCost = new int[numCells];
+        Arrays.fill(cellMinCost, Integer.MAX_VALUE);
+
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cellIndex(col(xs[i]), row(ys[i]));
+            cellStart[cellOf[i] + 1]++;
+            cellMinCost[cellOf[i]] = Math.min(cellMinCost[cellOf[i]], instance.costs[i]);
+        }
+        for (int c = 0; c < numCells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, numCells);
+        for (int i = 0; i < n; i++) {
+            cellNodes[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    // Writes the k nodes other than id with the lowest distance + cost into out[offset ..], best first,
+    // ties broken by node id. Returns how many were written (fewer than k only for tiny instances).
+    public int nearest(int id, int k, int[] out, int offset) {
+        if (k <= 0) return 0;
+
+        int x = instance.xs[id];
+        int y = instance.ys[id];
+        int qc = col(x);
+        int qr = row(y);
+
+        // Max-heap of (metric, id) keys, the root is the current k-th best
+        long[] heap = new long[k];
+        int heapSize = 0;
+
+        int maxRing = Math.max(Math.max(qc, cols - 1 - qc), Math.max(qr, rows - 1 - qr));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every cell of this ring is at least ring - 1 whole cells away
+            if (heapSize == k && ringBound(ring) > (int) (heap[0] >> 32)) break;
+
+            for (int r = qr - ring; r <= qr + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = (r == qr - ring || r == qr + ring);
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = qc - ring; c <= qc + ring; c += Math.max(1, step)) {
+                    if (c < 0 || c >= cols) continue;
+
+                    int cell = cellIndex(c, r);
+                    if (cellStart[cell] == cellStart[cell + 1]) continue;
+                    if (heapSize == k && cellBound(cell, c, r, x, y) > (int) (heap[0] >> 32)) continue;
+
+                    for (int p = cellStart[cell]; p < cellStart[cell + 1]; p++) {
+                        int other = cellNodes[p];
+                        if (other == id) continue;
+
+                        long key = ((long) (instance.distance(id, other) + instance.costs[other]) << 32) | other;
+                        if (heapSize < k) {
+                            heapSize = siftUp(heap, heapSize, key);
+                        } else if (key < heap[0]) {
+                            siftDown(heap, heapSize, key);
+                        }
+                    }
+                }
+            }
+        }
+
+        Arrays.sort(heap, 0, heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            out[offset + i] = (int) heap[i];
+        }
+        return heapSize;
+    }
+
+    private int ringBound(int ring) {
+        if (ring <= 1) return minCost;
+        return (int) Math.round((ring - 1) * cellSize) + minCost;
+    }
+
+    // Rounded distances are monotone in the true distance, so rounding the distance to the cell is a bound
+    private int cellBound(int cell, int c, int r, int x, int y) {
+        double cellX = minX + c * cellSize;
+        double cellY = minY + r * cellSize;
+        double dx = Math.max(0, Math.max(cellX - x, x - (cellX + cellSize)));
+        double dy = Math.max(0, Math.max(cellY - y, y - (cellY + cellSize)));
+        return (int) Math.round(Math.sqrt(dx * dx + dy * dy)) + cellMinCost[cell];
+    }
+
+    private int col(int x) {
+        return Math.min(cols - 1, (int) ((x - minX) / cellSize));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, (int) ((y - minY) / cellSize));
+    }
+
+    private int cellIndex(int c, int r) {
+        return r * cols + c;
+    }
+
+    private static int siftUp(long[] heap, int size, long key) {
+        int pos = size;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (heap[parent] >= key) break;
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = key;
+        return size + 1;
+    }
+
+    // Replaces the root with key and moves it down to its place
+    private static void siftDown(long[] heap, int size, long key) {
+        int pos = 0;
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (key >= heap[child]) break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = key;
+    }
+}
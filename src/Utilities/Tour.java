@@ -0,0 +1,160 @@
+package Utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Tour {
+    public int[] order;     // node ids in visiting order, only the first `size` entries are valid
+    public int[] position;  // position[id] = index of node id in order, -1 if not selected
+    public int size;
+
+    public Tour(int numNodes) {
+        this.order = new int[numNodes];
+        this.position = new int[numNodes];
+        Arrays.fill(position, -1);
+        this.size = 0;
+    }
+
+    public Tour(List<Integer> cycle, int numNodes) {
+        this(numNodes);
+        load(cycle);
+    }
+
+    // Reuse this tour for another cycle without reallocating the arrays
+    public void load(List<Integer> cycle) {
+        for (int i = 0; i < size; i++) position[order[i]] = -1;
+        size = 0;
+        for (int nodeId : cycle) {
+            order[size] = nodeId;
+            position[nodeId] = size;
+            size++;
+        }
+    }
+
+    public int get(int pos) {
+        return order[pos];
+    }
+
+    public int positionOf(int nodeId) {
+        return position[nodeId];
+    }
+
+    public boolean contains(int nodeId) {
+        return position[nodeId] >= 0;
+    }
+
+    public int prevPos(int pos) {
+        return pos == 0 ? size - 1 : pos - 1;
+    }
+
+    public int nextPos(int pos) {
+        return pos == size - 1 ? 0 : pos + 1;
+    }
+
+    // Node visited right before / after the given node id
+    public int pred(int nodeId) {
+        return order[prevPos(position[nodeId])];
+    }
+
+    public int succ(int nodeId) {
+        return order[nextPos(position[nodeId])];
+    }
+
+    public void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        position[b] = i;
+        position[a] = j;
+    }
+
+    // Reverse the segment from position `from` to position `to` (inclusive), wrapping around the end
+    public void reverse(int from, int to) {
+        int len = to - from;
+        if (len < 0) len += size;
+        len++;
+
+        int i = from;
+        int j = to;
+        for (int k = 0; k < len / 2; k++) {
+            swap(i, j);
+            i = (i == size - 1) ? 0 : i + 1;
+            j = (j == 0) ? size - 1 : j - 1;
+        }
+    }
+
+    // Move the segment of `length` nodes starting at position `from` between the node at position `after`
+    // and its successor, optionally reversed. Only the nodes between the segment and its new place shift,
+    // going whichever way around the cycle is shorter.
+    public void moveSegment(int from, int length, int after, boolean reversed) {
+        int[] segment = new int[length];
+        for (int k = 0; k < length; k++) {
+            segment[k] = order[(from + k) % size];
+        }
+
+        int offset = after - from;
+        if (offset < 0) offset += size;
+        int forward = offset - length + 1;  // nodes from the segment's successor up to `after`
+        int backward = size - offset - 1;   // nodes from the successor of `after` up to the segment's predecessor
+
+        int start;
+        if (forward <= backward) {
+            // Shift the forward stretch back by `length`, the segment ends up right after it
+            for (int k = 0; k < forward; k++) {
+                setAt((from + k) % size, order[(from + length + k) % size]);
+            }
+            start = (from + forward) % size;
+        } else {
+            // Shift the backward stretch forward by `length`, the segment ends up right before it
+            int first = (after + 1) % size;
+            for (int k = backward - 1; k >= 0; k--) {
+                setAt((first + length + k) % size, order[(first + k) % size]);
+            }
+            start = first;
+        }
+
+        for (int k = 0; k < length; k++) {
+            setAt((start + k) % size, reversed ? segment[length - 1 - k] : segment[k]);
+        }
+    }
+
+    private void setAt(int pos, int nodeId) {
+        order[pos] = nodeId;
+        position[nodeId] = pos;
+    }
+
+    // Put a non-selected node in place of the node at the given position
+    public void replace(int pos, int newNodeId) {
+        position[order[pos]] = -1;
+        order[pos] = newNodeId;
+        position[newNodeId] = pos;
+    }
+
+    public void copyFrom(Tour other) {
+        System.arraycopy(other.order, 0, order, 0, other.size);
+        System.arraycopy(other.position, 0, position, 0, other.position.length);
+        size = other.size;
+    }
+
+    public int totalDistance(Instance instance) {
+        int totalDistance = 0;
+        for (int i = 0; i < size; i++) {
+            totalDistance += instance.distance(order[i], order[nextPos(i)]);
+        }
+        return totalDistance;
+    }
+
+    public List<Integer> toCycle() {
+        List<Integer> cycle = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) cycle.add(order[i]);
+        return cycle;
+    }
+
+    public List<Node> toSelectedNodes(List<Node> allNodes) {
+        List<Node> selectedNodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) selectedNodes.add(allNodes.get(order[i]));
+        return selectedNodes;
+    }
+}
@@ -0,0 +1,29 @@
+package Utilities;
+
+import java.util.List;
+
+// Zobrist-style fingerprint of a cycle: XOR of a pseudo-random key per undirected edge.
+// The value does not depend on the starting node or the direction the cycle is written in.
+public class TourHash {
+
+    private TourHash() {
+    }
+
+    public static long of(List<Integer> cycle) {
+        long hash = 0;
+        int n = cycle.size();
+        for (int i = 0; i < n; i++) {
+            hash ^= edgeKey(cycle.get(i), cycle.get((i + 1) % n));
+        }
+        return hash;
+    }
+
+    // Key of the undirected edge a-b, derived with the SplitMix64 finalizer so no table is needed
+    public static long edgeKey(int a, int b) {
+        long z = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
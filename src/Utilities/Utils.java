@@ -20,7 +20,7 @@ public class Utils {
                 int y = Integer.parseInt(parts[1].trim());
                 int cost = Integer.parseInt(parts[2].trim());
 
-                nodes.add(new Node(x, y, cost));
+                nodes.add(new Node(nodes.size(), x, y, cost));
             }
         } catch (IOException e) {
             System.err.println("Error reading CSV: " + e.getMessage());
@@ -29,9 +29,19 @@ public class Utils {
         return nodes;
     }
 
+    // Reads best<instance>.ecsa when it is at least as new as best<instance>.csv (or the CSV is missing),
+    // so an archive left behind by an earlier run doesn't hide a rewritten CSV
     public static Solution getBestSolution(String filePath, Instance instance) throws IOException{
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath+"best"+instance.name+".csv"))) {
+        File archiveFile = new File(filePath + "best" + instance.name + SolutionArchive.EXTENSION);
+        File csvFile = new File(filePath + "best" + instance.name + ".csv");
+        if (archiveFile.exists() && (!csvFile.exists() || archiveFile.lastModified() >= csvFile.lastModified())) {
+            SolutionArchive archive = SolutionArchive.open(archiveFile.getPath());
+            int best = archive.bestIndex();
+            return (best < 0) ? null : archive.solution(best, instance);
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
             // Skip header
             String line = br.readLine();
             if (line == null) return null;
@@ -67,26 +77,56 @@ public class Utils {
 
     }
 
-    public static int calculateDistance(Node a, Node b) {
-        double distance = Math.sqrt(Math.pow(a.x - b.x, 2) + Math.pow(a.y - b.y, 2));
-        return (int) Math.round(distance);
-    }
+    // Solutions of any of the solutions CSVs in src/Results, columns are found by their header names
+    public static List<Solution> readSolutionsCSV(String filename, Instance instance) throws IOException {
+        List<Solution> solutions = new ArrayList<>();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line = br.readLine();
+            if (line == null) return solutions;
+
+            List<String> header = Arrays.asList(line.split(","));
+            int costColumn = header.indexOf("TotalCost");
+            int distanceColumn = header.indexOf("TotalDistance");
+            int timeColumn = header.indexOf("TotalRunningTime");
+            int iterationsColumn = header.indexOf("TotalIterations");
+            int cycleColumn = header.indexOf("Cycle");
+            if (costColumn < 0 || distanceColumn < 0 || timeColumn < 0 || cycleColumn < 0) {
+                throw new IOException("Not a solutions CSV: " + filename);
+            }
 
-    public static int[][] calculateDistanceMatrix(List<Node> nodes) {
-        int n = nodes.size();
-        int[][] distanceMatrix = new int[n][n];
-
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i != j) {
-                    distanceMatrix[i][j] = calculateDistance(nodes.get(i), nodes.get(j));
-                } else {
-                    distanceMatrix[i][j] = 0;
-                }
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length <= cycleColumn) continue; // skip malformed lines
+
+                Solution s = new Solution(transformNodeIDsToNodes(parts[cycleColumn], instance.nodes),
+                        transformNodeIDsToCycle(parts[cycleColumn]),
+                        Integer.parseInt(parts[costColumn]),
+                        Integer.parseInt(parts[distanceColumn]),
+                        Integer.parseInt(parts[timeColumn]));
+                if (iterationsColumn >= 0) s.iterations = Integer.parseInt(parts[iterationsColumn]);
+                solutions.add(s);
             }
         }
+        return solutions;
+    }
+
+    // Writes <name>.ecsa next to a solutions CSV, later runs can read the archive instead
+    public static String convertSolutionsCSV(String filename, Instance instance) throws IOException {
+        String archiveFile = SolutionArchive.archiveFileFor(filename);
+        SolutionArchive.write(archiveFile, readSolutionsCSV(filename, instance));
+        return archiveFile;
+    }
+
+    public static int calculateDistance(Node a, Node b) {
+        return calculateDistance(a.x, a.y, b.x, b.y);
+    }
 
-        return distanceMatrix;
+    // Rounded Euclidean distance; the squares are exact in a double, so this matches Math.pow/Math.sqrt
+    public static int calculateDistance(int x1, int y1, int x2, int y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return (int) Math.round(Math.sqrt(dx * dx + dy * dy));
     }
 
     public static List<Node> transformNodeIDsToNodes(String nodeIDs, List<Node> allNodes){